@@ -8,7 +8,9 @@ import android.view.View;
 import android.widget.Toast;
 
 import rubo.pullswipelayout.pullswipe.PullSwipeLayout;
+import rubo.pullswipelayout.pullswipe.PullSwipeLayout.OnItemSwipeListener;
 import rubo.pullswipelayout.pullswipe.PullSwipeLayout.OnRefreshListener;
+import rubo.pullswipelayout.pullswipe.PullSwipeLayout.ScrollToTopHandler;
 
 public class MainActivity extends AppCompatActivity {
 
@@ -34,10 +36,53 @@ public class MainActivity extends AppCompatActivity {
         rv.setLayoutManager(new LinearLayoutManager(this));
         rv.setAdapter(new MyRecyclerAdapter());
 
+        psl.setScrollToTopHandler(new ScrollToTopHandler() {
+            @Override
+            public void jumpNearTop(View target) {
+                LinearLayoutManager lm = (LinearLayoutManager) rv.getLayoutManager();
+                int first = lm.findFirstVisibleItemPosition();
+                int visibleCount = lm.findLastVisibleItemPosition() - first + 1;
+                if (first > visibleCount) {
+                    rv.scrollToPosition(visibleCount);
+                }
+            }
+
+            @Override
+            public void smoothScrollToTop(View target) {
+                rv.smoothScrollToPosition(0);
+            }
+
+            @Override
+            public void jumpToTop(View target) {
+                rv.stopScroll();
+                rv.scrollToPosition(0);
+            }
+        });
+
+        psl.setOnItemSwipeListener(new OnItemSwipeListener() {
+            @Override
+            public boolean onItemSwipeStart(View item) {
+                return true;
+            }
+
+            @Override
+            public void onItemSwipe(View item, float dx) {
+                item.setTranslationX(dx);
+            }
+
+            @Override
+            public void onItemSwipeEnd(View item, float dx, float velocityX) {
+                item.animate().translationX(0);
+            }
+        });
 
     }
 
     public void change(View view) {
-        psl.setRefreshing(!psl.isRefreshing());
+        if (psl.isRefreshing()) {
+            psl.setRefreshing(false);
+        } else {
+            psl.scrollToTopAndRefresh();
+        }
     }
 }
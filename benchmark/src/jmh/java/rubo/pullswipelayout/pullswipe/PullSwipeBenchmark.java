@@ -0,0 +1,199 @@
+package rubo.pullswipelayout.pullswipe;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 按 60/90/120Hz 的事件流回放一次完整的下拉、回弹和加载动画，
+ * 每个方法的结果对应一个手势或一个动画周期的耗时
+ */
+@State(Scope.Thread)
+public class PullSwipeBenchmark {
+
+    // 模拟的设备和输入：屏幕密度、view 尺寸和动画时长只决定输入的规模，
+    // 判定、阻尼和进度映射的算法与系数都直接调用 pullswipe 中的类
+    private static final float DENSITY = 3f;
+    private static final float TOTAL_DRAG_DISTANCE = 64 * DENSITY;
+    private static final int TOUCH_SLOP = (int) (8 * DENSITY);
+    private static final long GESTURE_DURATION = 500;
+    private static final long ANIMATE_TO_START_DURATION = 200;
+    private static final float DECELERATE_INTERPOLATION_FACTOR = 2f;
+
+    private static final float BALL_WIDTH = 40 * DENSITY;
+    private static final float BALL_HEIGHT = 30 * DENSITY;
+    private static final long BALL_DURATION = 900;
+
+    private static final float DOWN_X = 300;
+    private static final float DOWN_Y = 200;
+
+    @Param({"60", "90", "120"})
+    public int refreshRate;
+
+    private float[] mMoveEvents;
+    private float[] mMoveEventsX;
+    private float[] mSettleFrames;
+    private float[] mBallFrames;
+
+    private float mSpinnerFinalOffset;
+    private float mLWFinalOffset;
+    private float mBaseRadius;
+    private float mDeltaRadius;
+
+    private GestureClassifier mClassifier;
+    private DragProgressBinding mDragProgress;
+    private int mTravelPixels;
+
+    @Setup
+    public void setup() {
+        mSpinnerFinalOffset = TOTAL_DRAG_DISTANCE;
+        mLWFinalOffset = mSpinnerFinalOffset * PullGeometry.MARGIN_RATE;
+        mBaseRadius = PullGeometry.ballBaseRadius(BALL_HEIGHT);
+        mDeltaRadius = PullGeometry.ballDeltaRadius(BALL_HEIGHT);
+
+        mClassifier = new GestureClassifier(TOUCH_SLOP);
+        mDragProgress = new DragProgressBinding(new LoadingProgress() {
+            private float mProgress;
+
+            @Override
+            public float getProgress() {
+                return mProgress;
+            }
+
+            @Override
+            public void setProgress(float progress) {
+                mProgress = progress;
+            }
+
+            @Override
+            public void startProgress() {
+            }
+
+            @Override
+            public void resetProgress() {
+            }
+        });
+        mTravelPixels = PullGeometry.ballTravelPixels(mBaseRadius, BALL_WIDTH);
+
+        // 手指以减速曲线拉过刷新阈值的三倍距离，略带横向漂移，前几个采样用来越过 slop
+        int moves = frames(GESTURE_DURATION);
+        float travel = TOTAL_DRAG_DISTANCE * 3 / PullGeometry.DRAG_RATE;
+        mMoveEvents = new float[moves];
+        mMoveEventsX = new float[moves];
+        for (int i = 0; i < moves; i++) {
+            float t = (i + 1) / (float) moves;
+            mMoveEvents[i] = DOWN_Y + travel * (1 - (1 - t) * (1 - t));
+            mMoveEventsX[i] = DOWN_X + TOUCH_SLOP * t;
+        }
+
+        int settle = frames(ANIMATE_TO_START_DURATION);
+        mSettleFrames = new float[settle];
+        for (int i = 0; i < settle; i++) {
+            float t = (i + 1) / (float) settle;
+            mSettleFrames[i] = (float) (1 - Math.pow(1 - t, 2 * DECELERATE_INTERPOLATION_FACTOR));
+        }
+
+        int ball = frames(BALL_DURATION);
+        mBallFrames = new float[ball];
+        for (int i = 0; i < ball; i++) {
+            mBallFrames[i] = (i + 1) / (float) ball;
+        }
+    }
+
+    private int frames(long duration) {
+        return (int) (duration * refreshRate / 1000);
+    }
+
+    /**
+     * onInterceptTouchEvent 中的 GestureClassifier 判定加上 onTouchEvent 中的 moveContent
+     * 和指示器进度绑定，允许条目横滑时的判定路径
+     */
+    @Benchmark
+    public int dispatchPull() {
+        final GestureClassifier classifier = mClassifier;
+        classifier.onDown(DOWN_X, DOWN_Y);
+        mDragProgress.reset();
+        float initialMotionY = 0;
+        boolean beingDragged = false;
+        int currentTargetOffsetTop = 0;
+        int currentLWOffsetTop = 0;
+        int sink = 0;
+
+        final float[] events = mMoveEvents;
+        final float[] eventsX = mMoveEventsX;
+        for (int i = 0; i < events.length; i++) {
+            final float y = events[i];
+            if (!beingDragged) {
+                if (classifier.classify(eventsX[i], y, true, true) == GestureClassifier.GESTURE_PULL) {
+                    initialMotionY = classifier.getPullStartY();
+                    beingDragged = true;
+                }
+                continue;
+            }
+            final float overScrollTop = PullGeometry.overScrollTop(y, initialMotionY);
+            if (overScrollTop > 0) {
+                int targetY = PullGeometry.dragOffset(overScrollTop, TOTAL_DRAG_DISTANCE, mSpinnerFinalOffset);
+                int targetYLW = PullGeometry.dragOffset(overScrollTop, TOTAL_DRAG_DISTANCE, mLWFinalOffset);
+                sink += targetY - currentTargetOffsetTop;
+                sink += targetYLW - currentLWOffsetTop;
+                currentTargetOffsetTop = targetY;
+                currentLWOffsetTop = targetYLW;
+                final float fraction = PullGeometry.dragFraction(overScrollTop, TOTAL_DRAG_DISTANCE);
+                if (mDragProgress.bind(fraction, mTravelPixels)) {
+                    sink++;
+                }
+            }
+        }
+        return sink;
+    }
+
+    /**
+     * mAnimateToCorrectPosition 接着 mAnimateToStartPosition 的 applyTransformation
+     */
+    @Benchmark
+    public int settle() {
+        final int from = (int) (mSpinnerFinalOffset * 2);
+        final int fromLW = (int) (mLWFinalOffset * 2);
+        int top = from;
+        int topLW = fromLW;
+        int sink = 0;
+
+        final float[] frames = mSettleFrames;
+        for (int i = 0; i < frames.length; i++) {
+            int targetTop = PullGeometry.interpolate(from, (int) mSpinnerFinalOffset, frames[i]);
+            int targetTopLW = PullGeometry.interpolate(fromLW, (int) mLWFinalOffset, frames[i]);
+            sink += (targetTop - top) + (targetTopLW - topLW);
+            top = targetTop;
+            topLW = targetTopLW;
+        }
+        for (int i = 0; i < frames.length; i++) {
+            int targetTop = PullGeometry.interpolate((int) mSpinnerFinalOffset, 0, frames[i]);
+            int targetTopLW = PullGeometry.interpolate((int) mLWFinalOffset, 0, frames[i]);
+            sink += (targetTop - top) + (targetTopLW - topLW);
+            top = targetTop;
+            topLW = targetTopLW;
+        }
+        return sink;
+    }
+
+    /**
+     * LoadingBall 一个 DURATION 周期内的 mProgressAnim 和 setProgress
+     */
+    @Benchmark
+    public float loadingBall() {
+        float lastProgress = 0;
+        float sink = 0;
+
+        final float[] frames = mBallFrames;
+        for (int i = 0; i < frames.length; i++) {
+            float progress = PullGeometry.ballProgress(frames[i]);
+            float cx = PullGeometry.ballCenterX(mBaseRadius, BALL_WIDTH, progress);
+            float radius = PullGeometry.ballRadius(mBaseRadius, mDeltaRadius, progress, progress > lastProgress);
+            sink += cx + radius;
+            lastProgress = progress;
+        }
+        return sink;
+    }
+}
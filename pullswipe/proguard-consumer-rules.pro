@@ -0,0 +1,19 @@
+# 随 aar 一起下发给使用方的混淆规则
+
+# LoadingBall、LoadingWidget、ContentLayout 不是 public 类，默认规则不会保留它们供布局反射调用的构造方法
+-keep class rubo.pullswipelayout.pullswipe.LoadingBall {
+    <init>(android.content.Context, android.util.AttributeSet);
+}
+-keep class rubo.pullswipelayout.pullswipe.LoadingWidget {
+    <init>(android.content.Context, android.util.AttributeSet);
+}
+-keep class rubo.pullswipelayout.pullswipe.ContentLayout {
+    <init>(android.content.Context, android.util.AttributeSet);
+}
+-keep public class rubo.pullswipelayout.pullswipe.PullSwipeLayout {
+    public <init>(android.content.Context, android.util.AttributeSet);
+}
+
+-keepclassmembers class rubo.pullswipelayout.pullswipe.PullSwipeLayout$SavedState {
+    public static final android.os.Parcelable$Creator CREATOR;
+}
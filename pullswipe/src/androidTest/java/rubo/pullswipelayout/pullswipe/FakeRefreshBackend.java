@@ -0,0 +1,146 @@
+package rubo.pullswipelayout.pullswipe;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 进程内的假后端：按给定的延迟分布在工作线程上完成请求，按比例返回失败，
+ * 超时后丢弃回调。所有回调都在主线程执行
+ */
+class FakeRefreshBackend {
+
+    interface Callback {
+        void onSuccess();
+
+        void onFailure();
+
+        void onTimeout();
+    }
+
+    /**
+     * 每次请求的延迟，单位毫秒
+     */
+    interface Latency {
+        long next(Random random);
+    }
+
+    static Latency fixed(final long millis) {
+        return new Latency() {
+            @Override
+            public long next(Random random) {
+                return millis;
+            }
+        };
+    }
+
+    static Latency uniform(final long minMillis, final long maxMillis) {
+        return new Latency() {
+            @Override
+            public long next(Random random) {
+                return minMillis + (long) (random.nextDouble() * (maxMillis - minMillis));
+            }
+        };
+    }
+
+    static Latency exponential(final long meanMillis) {
+        return new Latency() {
+            @Override
+            public long next(Random random) {
+                return (long) (-meanMillis * Math.log(1 - random.nextDouble()));
+            }
+        };
+    }
+
+    private final Latency mLatency;
+    private final long mTimeoutMillis;
+    private final float mFailureRate;
+    private final Random mRandom;
+
+    private final ScheduledExecutorService mWorker = Executors.newSingleThreadScheduledExecutor();
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final Set<Request> mPending = new HashSet<Request>();
+
+    FakeRefreshBackend(Latency latency, long timeoutMillis, float failureRate, long seed) {
+        mLatency = latency;
+        mTimeoutMillis = timeoutMillis;
+        mFailureRate = failureRate;
+        mRandom = new Random(seed);
+    }
+
+    /**
+     * 只能在主线程调用
+     */
+    void request(Callback callback) {
+        final Request request = new Request(callback, mRandom.nextFloat() < mFailureRate);
+        mPending.add(request);
+        mWorker.schedule(new Runnable() {
+            @Override
+            public void run() {
+                mMainHandler.post(request.mCompleteRunnable);
+            }
+        }, mLatency.next(mRandom), TimeUnit.MILLISECONDS);
+        mMainHandler.postDelayed(request.mTimeoutRunnable, mTimeoutMillis);
+    }
+
+    /**
+     * @return 尚未完成、仍持有回调的请求数，只能在主线程调用
+     */
+    int getPendingCount() {
+        return mPending.size();
+    }
+
+    void shutdown() {
+        mWorker.shutdownNow();
+        mMainHandler.removeCallbacksAndMessages(null);
+    }
+
+    private class Request {
+        private Callback mCallback;
+        private final boolean mFail;
+
+        Request(Callback callback, boolean fail) {
+            mCallback = callback;
+            mFail = fail;
+        }
+
+        private Callback take() {
+            Callback callback = mCallback;
+            mCallback = null;
+            mPending.remove(this);
+            mMainHandler.removeCallbacks(mTimeoutRunnable);
+            return callback;
+        }
+
+        final Runnable mCompleteRunnable = new Runnable() {
+            @Override
+            public void run() {
+                Callback callback = take();
+                if (callback == null) {
+                    return;
+                }
+                if (mFail) {
+                    callback.onFailure();
+                } else {
+                    callback.onSuccess();
+                }
+            }
+        };
+
+        final Runnable mTimeoutRunnable = new Runnable() {
+            @Override
+            public void run() {
+                Callback callback = take();
+                if (callback != null) {
+                    callback.onTimeout();
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,351 @@
+package rubo.pullswipelayout.pullswipe;
+
+import android.os.Build.VERSION;
+import android.os.Bundle;
+import android.os.SystemClock;
+import android.test.ActivityInstrumentationTestCase2;
+import android.test.InstrumentationTestRunner;
+import android.test.suitebuilder.annotation.LargeTest;
+import android.util.Log;
+import android.view.MotionEvent;
+import android.view.View;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import rubo.pullswipelayout.pullswipe.PullSwipeLayout.OnRefreshListener;
+
+/**
+ * 长时间运行的稳定性测试：对着 FakeRefreshBackend 反复执行 下拉 → 刷新 → 回弹，
+ * 每个周期检查动画、回调、硬件层、帧监控和 LoadingBall 状态是否回收干净，
+ * 并在结束时比较前后两段的堆内存和 UI 耗时。
+ * 分别在默认配置、拖拽快照和自适应画质下运行，每种配置默认 2000 个周期，合计约一小时。
+ * 默认的 connectedAndroidTest 通过 notAnnotation 排除了 @LargeTest，用 ./gradlew connectedAndroidTest -Psoak 运行，
+ * -PsoakCycles 可以修改每种配置的周期数（需要 API 18）
+ */
+@LargeTest
+public class PullSwipeSoakTest extends ActivityInstrumentationTestCase2<SoakTestActivity> {
+
+    private static final String TAG = "PullSwipeSoakTest";
+
+    private static final String ARG_CYCLES = "soakCycles";
+    private static final int DEFAULT_CYCLES = 2000;
+    private static final int WARMUP_CYCLES = 100;
+    private static final int HEAP_CHECK_INTERVAL = 100;
+    private static final int LATENCY_WINDOW = 200;
+
+    private static final long MAX_HEAP_GROWTH = 2 * 1024 * 1024;
+    private static final float MAX_LATENCY_DRIFT = 1.5f;
+    private static final long LATENCY_DRIFT_SLACK = 20;
+
+    private static final long BACKEND_MEAN_LATENCY = 40;
+    private static final long BACKEND_TIMEOUT = 150;
+    private static final float BACKEND_FAILURE_RATE = .1f;
+    private static final long SEED = 42;
+
+    private static final int PULL_DISTANCE = 400;
+    private static final int PULL_FRAMES = 10;
+    private static final int MOVES_PER_FRAME = 3;
+    private static final long FRAME_INTERVAL = 16;
+    private static final long CYCLE_TIMEOUT = 5000;
+    private static final long POLL_INTERVAL = 16;
+
+    private PullSwipeLayout mLayout;
+    private FakeRefreshBackend mBackend;
+    private final CycleListener mCycleListener = new CycleListener();
+
+    public PullSwipeSoakTest() {
+        super(SoakTestActivity.class);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mLayout = getActivity().mLayout;
+        mBackend = new FakeRefreshBackend(FakeRefreshBackend.exponential(BACKEND_MEAN_LATENCY),
+                BACKEND_TIMEOUT, BACKEND_FAILURE_RATE, SEED);
+        getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                mLayout.setOnRefreshListener(mCycleListener);
+            }
+        });
+        getInstrumentation().waitForIdleSync();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        mBackend.shutdown();
+        super.tearDown();
+    }
+
+    public void testDefaultConfiguration() throws Exception {
+        soak(PullSwipeLayout.SNAPSHOT_OFF, false);
+    }
+
+    public void testSnapshotAlways() throws Exception {
+        soak(PullSwipeLayout.SNAPSHOT_ALWAYS, false);
+    }
+
+    public void testSnapshotAutoWithAdaptiveQuality() throws Exception {
+        soak(PullSwipeLayout.SNAPSHOT_AUTO, true);
+    }
+
+    public void testAdaptiveQuality() throws Exception {
+        soak(PullSwipeLayout.SNAPSHOT_OFF, true);
+    }
+
+    private void soak(final int snapshotMode, final boolean adaptiveQuality) throws Exception {
+        final Bundle arguments = getArguments();
+        final String cyclesArgument = arguments != null ? arguments.getString(ARG_CYCLES) : null;
+        final int cycles = cyclesArgument != null ? Integer.parseInt(cyclesArgument) : DEFAULT_CYCLES;
+        assertTrue("soakCycles must be at least " + (WARMUP_CYCLES + 2 * LATENCY_WINDOW),
+                cycles >= WARMUP_CYCLES + 2 * LATENCY_WINDOW);
+
+        getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                mLayout.setDragSnapshotMode(snapshotMode);
+                // 阈值为 0 时 SNAPSHOT_AUTO 仍会测量内容的绘制耗时，但每次都会启用
+                mLayout.setDragSnapshotThreshold(0);
+                mLayout.setAdaptiveQualityEnabled(adaptiveQuality);
+            }
+        });
+        final String config = "snapshot " + snapshotMode + ", adaptive quality " + adaptiveQuality;
+
+        final long[] uiTimes = new long[cycles];
+        long baselineHeap = 0;
+        int snapshotCycles = 0;
+        int monitoredCycles = 0;
+
+        for (int cycle = 0; cycle < cycles; cycle++) {
+            final boolean[] used = new boolean[2];
+            uiTimes[cycle] = runCycle(cycle, used);
+            if (used[0]) {
+                snapshotCycles++;
+            }
+            if (used[1]) {
+                monitoredCycles++;
+            }
+            assertNoLeakedState(cycle);
+
+            if (cycle == WARMUP_CYCLES - 1) {
+                baselineHeap = usedHeap();
+            } else if (cycle >= WARMUP_CYCLES && (cycle + 1) % HEAP_CHECK_INTERVAL == 0) {
+                final long growth = usedHeap() - baselineHeap;
+                Log.i(TAG, config + ", cycle " + cycle + ": heap growth " + growth + " bytes");
+                assertTrue("cycle " + cycle + ": heap grew by " + growth + " bytes",
+                        growth < MAX_HEAP_GROWTH);
+            }
+        }
+
+        // 确认被测的状态确实创建过，否则对应的泄漏检查没有意义
+        if (snapshotMode != PullSwipeLayout.SNAPSHOT_OFF && mLayout.isHardwareAccelerated()) {
+            assertTrue("drag snapshot never used", snapshotCycles > 0);
+        }
+        if (adaptiveQuality && VERSION.SDK_INT >= 16) {
+            assertTrue("frame monitor never started", monitoredCycles > 0);
+        }
+
+        final long first = median(uiTimes, WARMUP_CYCLES, WARMUP_CYCLES + LATENCY_WINDOW);
+        final long last = median(uiTimes, cycles - LATENCY_WINDOW, cycles);
+        Log.i(TAG, config + ": median ui time per cycle: first " + first + "ms, last " + last + "ms");
+        logLatencies();
+        assertTrue("ui time per cycle drifted from " + first + "ms to " + last + "ms",
+                last <= first * MAX_LATENCY_DRIFT + LATENCY_DRIFT_SLACK);
+    }
+
+    /**
+     * InstrumentationTestRunner.getArguments 需要 API 18，更早的系统使用默认周期数
+     */
+    private Bundle getArguments() {
+        if (VERSION.SDK_INT < 18 || !(getInstrumentation() instanceof InstrumentationTestRunner)) {
+            return null;
+        }
+        return ((InstrumentationTestRunner) getInstrumentation()).getArguments();
+    }
+
+    /**
+     * @param used 返回拖拽过程中是否用上了快照、帧监控是否在运行
+     * @return 本周期中 UI 自身的耗时（松手到 onRefresh，加上 setRefreshing(false) 到回到原位），不含后端延迟
+     */
+    private long runCycle(int cycle, boolean[] used) throws Exception {
+        mCycleListener.prepare();
+        final long releasedAt = pull(used);
+
+        assertTrue("cycle " + cycle + ": refresh did not finish",
+                mCycleListener.mFinished.await(CYCLE_TIMEOUT, TimeUnit.MILLISECONDS));
+        final long restAt = waitForRest(cycle);
+
+        return (mCycleListener.mRefreshAt - releasedAt) + (restAt - mCycleListener.mFinishedAt);
+    }
+
+    /**
+     * 模拟一次越过刷新阈值的下拉。MOVE 分散在多帧里发送，每帧几个，
+     * 这样逐帧合并、绘制前的统一应用和指示器进度绑定都会真正跨帧运行
+     *
+     * @return 松手时间
+     */
+    private long pull(final boolean[] used) throws Exception {
+        final float density = mLayout.getResources().getDisplayMetrics().density;
+        final float x = mLayout.getWidth() / 2;
+        final float startY = 10 * density;
+        final float distance = PULL_DISTANCE * density;
+        final int steps = PULL_FRAMES * MOVES_PER_FRAME;
+        final long downTime = SystemClock.uptimeMillis();
+
+        getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                dispatch(downTime, MotionEvent.ACTION_DOWN, x, startY);
+            }
+        });
+        for (int frame = 0; frame < PULL_FRAMES; frame++) {
+            final int firstStep = frame * MOVES_PER_FRAME + 1;
+            getInstrumentation().runOnMainSync(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = firstStep; i < firstStep + MOVES_PER_FRAME; i++) {
+                        dispatch(downTime, MotionEvent.ACTION_MOVE, x, startY + distance * i / steps);
+                    }
+                }
+            });
+            Thread.sleep(FRAME_INTERVAL);
+        }
+
+        final long[] releasedAt = new long[1];
+        getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                used[0] = mLayout.mTargetContainer.getLayerType() == View.LAYER_TYPE_HARDWARE;
+                used[1] = mLayout.mFrameMonitor != null && mLayout.mFrameMonitor.isRunning();
+                dispatch(downTime, MotionEvent.ACTION_UP, x, startY + distance);
+                releasedAt[0] = SystemClock.uptimeMillis();
+            }
+        });
+        return releasedAt[0];
+    }
+
+    private void dispatch(long downTime, int action, float x, float y) {
+        final MotionEvent event = MotionEvent.obtain(downTime, SystemClock.uptimeMillis(), action, x, y, 0);
+        mLayout.dispatchTouchEvent(event);
+        event.recycle();
+    }
+
+    /**
+     * @return 回到原位的时间
+     */
+    private long waitForRest(int cycle) throws Exception {
+        final long deadline = SystemClock.uptimeMillis() + CYCLE_TIMEOUT;
+        final boolean[] atRest = new boolean[1];
+        final Runnable check = new Runnable() {
+            @Override
+            public void run() {
+                atRest[0] = !mLayout.isRefreshing()
+                        && mLayout.mTargetContainer.getAnimation() == null
+                        && mLayout.mTargetContainer.getTop() == 0;
+            }
+        };
+        while (true) {
+            getInstrumentation().runOnMainSync(check);
+            if (atRest[0]) {
+                return SystemClock.uptimeMillis();
+            }
+            assertTrue("cycle " + cycle + ": layout did not settle", SystemClock.uptimeMillis() < deadline);
+            Thread.sleep(POLL_INTERVAL);
+        }
+    }
+
+    private void assertNoLeakedState(int cycle) {
+        final String[] leak = new String[1];
+        getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                final LoadingBall ball = mLayout.mLoadingWidget.mLoadingBall;
+                if (mBackend.getPendingCount() != 0) {
+                    leak[0] = mBackend.getPendingCount() + " backend callbacks retained";
+                } else if (mLayout.mTargetContainer.getAnimation() != null) {
+                    leak[0] = "settle animation retained";
+                } else if (ball.getAnimation() != null || ball.isProgress) {
+                    leak[0] = "LoadingBall still animating";
+                } else if (mLayout.mLoadingWidget.getTop() != 0) {
+                    leak[0] = "indicator not back at rest";
+                } else if (mLayout.mTargetContainer.getLayerType() != View.LAYER_TYPE_NONE) {
+                    leak[0] = "drag snapshot still shown";
+                } else if (mLayout.mFrameMonitor != null && mLayout.mFrameMonitor.isRunning()) {
+                    leak[0] = "frame monitor still running";
+                }
+            }
+        });
+        assertNull("cycle " + cycle + ": " + leak[0], leak[0]);
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            runtime.gc();
+            runtime.runFinalization();
+            Thread.sleep(50);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long median(long[] values, int from, int to) {
+        final long[] window = Arrays.copyOfRange(values, from, to);
+        Arrays.sort(window);
+        return window[window.length / 2];
+    }
+
+    private void logLatencies() {
+        mLayout.reportLatencies(new LatencyReporter() {
+            @Override
+            public void report(String metric, LatencyHistogram.Snapshot snapshot) {
+                Log.i(TAG, metric + ": count " + snapshot.getTotalCount()
+                        + ", p50 <" + snapshot.getPercentileMicros(50) + "us"
+                        + ", p99 <" + snapshot.getPercentileMicros(99) + "us");
+            }
+        }, false);
+    }
+
+    /**
+     * onRefresh 时向假后端发请求，不论成功、失败还是超时都结束刷新
+     */
+    private class CycleListener implements OnRefreshListener, FakeRefreshBackend.Callback {
+
+        volatile CountDownLatch mFinished;
+        volatile long mRefreshAt;
+        volatile long mFinishedAt;
+
+        void prepare() {
+            mFinished = new CountDownLatch(1);
+        }
+
+        @Override
+        public void onRefresh() {
+            mRefreshAt = SystemClock.uptimeMillis();
+            mBackend.request(this);
+        }
+
+        @Override
+        public void onSuccess() {
+            finish();
+        }
+
+        @Override
+        public void onFailure() {
+            finish();
+        }
+
+        @Override
+        public void onTimeout() {
+            finish();
+        }
+
+        private void finish() {
+            mFinishedAt = SystemClock.uptimeMillis();
+            mLayout.setRefreshing(false);
+            mFinished.countDown();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package rubo.pullswipelayout.pullswipe;
+
+import android.app.Activity;
+import android.os.Bundle;
+import android.view.ViewGroup.LayoutParams;
+import android.widget.ArrayAdapter;
+import android.widget.ListView;
+
+/**
+ * 只包含一个 PullSwipeLayout 和一个停在顶部的 ListView，供 PullSwipeSoakTest 使用
+ */
+public class SoakTestActivity extends Activity {
+
+    PullSwipeLayout mLayout;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        mLayout = new PullSwipeLayout(this, null);
+
+        ListView list = new ListView(this);
+        list.setAdapter(new ArrayAdapter<String>(this, android.R.layout.simple_list_item_1,
+                new String[]{"1", "2", "3"}));
+        mLayout.addView(list, new LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.MATCH_PARENT));
+
+        setContentView(mLayout);
+    }
+}
@@ -0,0 +1,48 @@
+package rubo.pullswipelayout.pullswipe;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.util.AttributeSet;
+import android.widget.FrameLayout;
+
+/**
+ * 包裹内容的容器。开启采样后每次重建 display list 都记录 dispatchDraw 的耗时，
+ * 供 SNAPSHOT_AUTO 判断内容是否昂贵
+ */
+class ContentLayout extends FrameLayout {
+
+    private static final int DRAW_COST_DECAY_SHIFT = 3;
+
+    private boolean mSampling;
+    private long mDrawCost;
+
+    public ContentLayout(Context context, AttributeSet attrs) {
+        super(context, attrs);
+    }
+
+    void setDrawCostSampling(boolean sampling) {
+        mSampling = sampling;
+        if (!sampling) {
+            mDrawCost = 0;
+        }
+    }
+
+    /**
+     * @return 最近几次重建的耗时峰值，单位纳秒。只在内容真正重建时更新和衰减
+     */
+    long getDrawCost() {
+        return mDrawCost;
+    }
+
+    @Override
+    protected void dispatchDraw(Canvas canvas) {
+        if (!mSampling) {
+            super.dispatchDraw(canvas);
+            return;
+        }
+        final long start = System.nanoTime();
+        super.dispatchDraw(canvas);
+        final long cost = System.nanoTime() - start;
+        mDrawCost = Math.max(cost, mDrawCost - (mDrawCost >> DRAW_COST_DECAY_SHIFT));
+    }
+}
@@ -0,0 +1,49 @@
+package rubo.pullswipelayout.pullswipe;
+
+/**
+ * 把下拉距离映射为指示器进度，按步数量化，只有落到新的一步时才调用 setProgress 重绘
+ */
+class DragProgressBinding {
+
+    private final LoadingProgress mProgress;
+    private int mSteps;
+
+    private int mLastSteps;
+    private int mLastStep = -1;
+
+    DragProgressBinding(LoadingProgress progress) {
+        mProgress = progress;
+    }
+
+    /**
+     * @param steps 进度从 0 到 1 分成的步数；不大于 0 时按指示器移动的像素数量化
+     */
+    void setSteps(int steps) {
+        mSteps = steps;
+        mLastStep = -1;
+    }
+
+    /**
+     * @param fraction 下拉距离占刷新距离的比例，超出[0, 1]的部分会被截断
+     * @param pixels   进度从 0 到 1 时指示器移动的像素数
+     * @return 是否更新了进度
+     */
+    boolean bind(float fraction, int pixels) {
+        final int steps = mSteps > 0 ? mSteps : Math.max(1, pixels);
+        final int step = Math.round(Math.max(0f, Math.min(1f, fraction)) * steps);
+        if (step == mLastStep && steps == mLastSteps) {
+            return false;
+        }
+        mLastStep = step;
+        mLastSteps = steps;
+        mProgress.setProgress(step / (float) steps);
+        return true;
+    }
+
+    /**
+     * 指示器进度被其他途径修改后调用，下一次 bind 一定会更新
+     */
+    void reset() {
+        mLastStep = -1;
+    }
+}
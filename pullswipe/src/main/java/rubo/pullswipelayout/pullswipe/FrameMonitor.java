@@ -0,0 +1,100 @@
+package rubo.pullswipelayout.pullswipe;
+
+import android.annotation.TargetApi;
+import android.os.Build.VERSION_CODES;
+import android.view.Choreographer;
+
+/**
+ * 手势期间逐帧统计帧间隔，掉帧过多时通知降级，连续流畅时通知恢复
+ */
+@TargetApi(VERSION_CODES.JELLY_BEAN)
+class FrameMonitor implements Choreographer.FrameCallback {
+
+    static final int WINDOW_FRAMES = 30;
+    static final int JANK_FRAMES_TO_DEGRADE = 3;
+    static final int HEALTHY_WINDOWS_TO_RECOVER = 3;
+
+    interface Callback {
+        void onDegrade();
+
+        void onRecover();
+    }
+
+    private final Callback mCallback;
+    private long mJankThresholdNanos;
+
+    private boolean mRunning;
+    private long mLastFrameNanos;
+    private int mFrames;
+    private int mJankFrames;
+    private int mHealthyWindows;
+
+    FrameMonitor(Callback callback, long jankThresholdNanos) {
+        mCallback = callback;
+        mJankThresholdNanos = jankThresholdNanos;
+    }
+
+    void setJankThresholdNanos(long jankThresholdNanos) {
+        mJankThresholdNanos = jankThresholdNanos;
+    }
+
+    void start() {
+        if (mRunning) {
+            return;
+        }
+        mRunning = true;
+        // 两次手势之间的空闲不算作一帧，窗口内的计数保留
+        mLastFrameNanos = 0;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    void stop() {
+        if (!mRunning) {
+            return;
+        }
+        mRunning = false;
+        Choreographer.getInstance().removeFrameCallback(this);
+    }
+
+    boolean isRunning() {
+        return mRunning;
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!mRunning) {
+            return;
+        }
+        onFrame(frameTimeNanos);
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    private void onFrame(long frameTimeNanos) {
+        if (mLastFrameNanos != 0) {
+            mFrames++;
+            if (frameTimeNanos - mLastFrameNanos > mJankThresholdNanos) {
+                mJankFrames++;
+            }
+
+            if (mJankFrames >= JANK_FRAMES_TO_DEGRADE) {
+                resetWindow();
+                mHealthyWindows = 0;
+                mCallback.onDegrade();
+            } else if (mFrames >= WINDOW_FRAMES) {
+                if (mJankFrames == 0 && ++mHealthyWindows >= HEALTHY_WINDOWS_TO_RECOVER) {
+                    mHealthyWindows = 0;
+                    mCallback.onRecover();
+                } else if (mJankFrames != 0) {
+                    mHealthyWindows = 0;
+                }
+                resetWindow();
+            }
+        }
+        mLastFrameNanos = frameTimeNanos;
+    }
+
+    private void resetWindow() {
+        mFrames = 0;
+        mJankFrames = 0;
+    }
+}
@@ -0,0 +1,153 @@
+package rubo.pullswipelayout.pullswipe;
+
+import android.support.v4.view.MotionEventCompat;
+import android.support.v4.view.VelocityTrackerCompat;
+import android.view.MotionEvent;
+import android.view.VelocityTracker;
+
+/**
+ * 下拉刷新和条目横滑共用的手势判定：同一套 pointer、slop 和速度跟踪，
+ * 每个手势只判定一次，判定后直到抬起都不再变化。判定本身由 GestureClassifier 完成
+ */
+class GestureArbiter {
+
+    static final int INVALID_POINTER = -1;
+
+    static final int GESTURE_NONE = GestureClassifier.GESTURE_NONE;
+    static final int GESTURE_PULL = GestureClassifier.GESTURE_PULL;
+    static final int GESTURE_ITEM_SWIPE = GestureClassifier.GESTURE_ITEM_SWIPE;
+
+    private final GestureClassifier mClassifier;
+    private VelocityTracker mVelocityTracker;
+
+    private int mActivePointerId = INVALID_POINTER;
+
+    GestureArbiter(int touchSlop) {
+        mClassifier = new GestureClassifier(touchSlop);
+    }
+
+    /**
+     * @return 按下位置无效时返回 false
+     */
+    boolean onDown(MotionEvent ev) {
+        mClassifier.reset();
+        mActivePointerId = MotionEventCompat.getPointerId(ev, 0);
+        if (mVelocityTracker == null) {
+            mVelocityTracker = VelocityTracker.obtain();
+        } else {
+            mVelocityTracker.clear();
+        }
+        mVelocityTracker.addMovement(ev);
+
+        final float x = getX(ev);
+        final float y = getY(ev);
+        if (x == -1 || y == -1) {
+            return false;
+        }
+        mClassifier.onDown(x, y);
+        return true;
+    }
+
+    void addMovement(MotionEvent ev) {
+        if (mVelocityTracker != null) {
+            mVelocityTracker.addMovement(ev);
+        }
+    }
+
+    void onPointerDown(MotionEvent ev) {
+        final int pointerIndex = MotionEventCompat.getActionIndex(ev);
+        mActivePointerId = MotionEventCompat.getPointerId(ev, pointerIndex);
+    }
+
+    void onSecondaryPointerUp(MotionEvent ev) {
+        final int pointerIndex = MotionEventCompat.getActionIndex(ev);
+        final int pointerId = MotionEventCompat.getPointerId(ev, pointerIndex);
+        if (pointerId == mActivePointerId) {
+            final int newPointerIndex = pointerIndex == 0 ? 1 : 0;
+            mActivePointerId = MotionEventCompat.getPointerId(ev, newPointerIndex);
+        }
+    }
+
+    /**
+     * 尚未判定时根据当前 pointer 的位置判定手势，规则见 GestureClassifier.classify
+     *
+     * @param canPull  当前是否允许下拉
+     * @param canSwipe 当前是否允许条目横滑
+     */
+    int classify(MotionEvent ev, boolean canPull, boolean canSwipe) {
+        if (mClassifier.getGesture() != GESTURE_NONE) {
+            return mClassifier.getGesture();
+        }
+        final float x = getX(ev);
+        final float y = getY(ev);
+        if (x == -1 || y == -1) {
+            return mClassifier.getGesture();
+        }
+        return mClassifier.classify(x, y, canPull, canSwipe);
+    }
+
+    int getGesture() {
+        return mClassifier.getGesture();
+    }
+
+    /**
+     * 放弃已判定的横滑，本次手势剩余部分交给子控件
+     */
+    void rejectSwipe() {
+        mClassifier.rejectSwipe();
+    }
+
+    float getInitialDownX() {
+        return mClassifier.getInitialDownX();
+    }
+
+    float getPullStartY() {
+        return mClassifier.getPullStartY();
+    }
+
+    /**
+     * @return 当前 pointer 的横坐标，pointer 无效时返回 -1
+     */
+    float getX(MotionEvent ev) {
+        final int index = MotionEventCompat.findPointerIndex(ev, mActivePointerId);
+        if (index < 0) {
+            return -1;
+        }
+        return MotionEventCompat.getX(ev, index);
+    }
+
+    /**
+     * @return 当前 pointer 的纵坐标，pointer 无效时返回 -1
+     */
+    float getY(MotionEvent ev) {
+        final int index = MotionEventCompat.findPointerIndex(ev, mActivePointerId);
+        if (index < 0) {
+            return -1;
+        }
+        return MotionEventCompat.getY(ev, index);
+    }
+
+    boolean hasActivePointer() {
+        return mActivePointerId != INVALID_POINTER;
+    }
+
+    /**
+     * @return 横向速度，单位像素/秒
+     */
+    float computeXVelocity() {
+        if (mVelocityTracker == null) {
+            return 0;
+        }
+        mVelocityTracker.computeCurrentVelocity(1000);
+        return VelocityTrackerCompat.getXVelocity(mVelocityTracker, mActivePointerId);
+    }
+
+    void reset() {
+        mClassifier.reset();
+        mActivePointerId = INVALID_POINTER;
+        if (mVelocityTracker != null) {
+            mVelocityTracker.recycle();
+            mVelocityTracker = null;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package rubo.pullswipelayout.pullswipe;
+
+/**
+ * GestureArbiter 中不依赖 MotionEvent 的判定部分，便于在 JVM 上做基准测试。
+ * 每个手势只判定一次，判定后直到 reset 都不再变化
+ */
+final class GestureClassifier {
+
+    static final int GESTURE_NONE = 0;
+    static final int GESTURE_PULL = 1;
+    static final int GESTURE_ITEM_SWIPE = 2;
+
+    private final int mTouchSlop;
+
+    private float mInitialDownX;
+    private float mInitialDownY;
+    private int mGesture = GESTURE_NONE;
+    private boolean mSwipeBlocked;
+
+    GestureClassifier(int touchSlop) {
+        mTouchSlop = touchSlop;
+    }
+
+    void onDown(float x, float y) {
+        reset();
+        mInitialDownX = x;
+        mInitialDownY = y;
+    }
+
+    /**
+     * 尚未判定时根据当前位移判定手势：横向超过 slop 且大于纵向为条目横滑，
+     * 向下超过 slop 为下拉；纵向先超过 slop 后本次手势不再判定为横滑
+     *
+     * @param canPull  当前是否允许下拉
+     * @param canSwipe 当前是否允许条目横滑
+     */
+    int classify(float x, float y, boolean canPull, boolean canSwipe) {
+        if (mGesture != GESTURE_NONE) {
+            return mGesture;
+        }
+        final float dx = x - mInitialDownX;
+        final float dy = y - mInitialDownY;
+        final float adx = Math.abs(dx);
+        final float ady = Math.abs(dy);
+        final boolean swipePossible = canSwipe && !mSwipeBlocked;
+
+        if (swipePossible && adx > mTouchSlop && adx > ady) {
+            mGesture = GESTURE_ITEM_SWIPE;
+        } else if (canPull && dy > mTouchSlop && (!swipePossible || dy >= adx)) {
+            mGesture = GESTURE_PULL;
+        } else if (ady > mTouchSlop) {
+            mSwipeBlocked = true;
+        }
+        return mGesture;
+    }
+
+    int getGesture() {
+        return mGesture;
+    }
+
+    /**
+     * 放弃已判定的横滑，本次手势剩余部分交给子控件
+     */
+    void rejectSwipe() {
+        mGesture = GESTURE_NONE;
+        mSwipeBlocked = true;
+    }
+
+    float getInitialDownX() {
+        return mInitialDownX;
+    }
+
+    float getInitialDownY() {
+        return mInitialDownY;
+    }
+
+    /**
+     * @return 下拉距离的起点，越过 slop 的部分不计入下拉
+     */
+    float getPullStartY() {
+        return mInitialDownY + mTouchSlop;
+    }
+
+    void reset() {
+        mGesture = GESTURE_NONE;
+        mSwipeBlocked = false;
+    }
+}
@@ -0,0 +1,103 @@
+package rubo.pullswipelayout.pullswipe;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 固定大小的无锁耗时直方图，按微秒以 2 的幂分桶：第 i 个桶记录 [2^i, 2^(i+1)) 微秒，
+ * 第 0 个桶同时包含 0 微秒，最后一个桶包含所有更大的值。
+ * <p>
+ * 任意线程都可以记录、取快照和清零。快照逐桶读取，不保证与并发的记录严格一致
+ */
+public final class LatencyHistogram {
+
+    public static final int BUCKET_COUNT = 32;
+
+    private final AtomicLongArray mCounts = new AtomicLongArray(BUCKET_COUNT);
+
+    public void record(long duration, TimeUnit unit) {
+        mCounts.incrementAndGet(bucketOf(unit.toMicros(duration)));
+    }
+
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = mCounts.get(i);
+        }
+        return new Snapshot(counts);
+    }
+
+    /**
+     * 取快照的同时清零，两次调用之间的记录不会丢失也不会重复
+     */
+    public Snapshot snapshotAndReset() {
+        long[] counts = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = mCounts.getAndSet(i, 0);
+        }
+        return new Snapshot(counts);
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            mCounts.set(i, 0);
+        }
+    }
+
+    static int bucketOf(long micros) {
+        if (micros <= 1) {
+            return 0;
+        }
+        int bucket = 63 - Long.numberOfLeadingZeros(micros);
+        return Math.min(bucket, BUCKET_COUNT - 1);
+    }
+
+    public static final class Snapshot {
+
+        private final long[] mCounts;
+        private final long mTotal;
+
+        Snapshot(long[] counts) {
+            mCounts = counts;
+            long total = 0;
+            for (long count : counts) {
+                total += count;
+            }
+            mTotal = total;
+        }
+
+        public long getTotalCount() {
+            return mTotal;
+        }
+
+        public long getCount(int bucket) {
+            return mCounts[bucket];
+        }
+
+        /**
+         * @return 第 bucket 个桶的上界（不含），单位微秒
+         */
+        public static long getUpperBoundMicros(int bucket) {
+            return bucket == BUCKET_COUNT - 1 ? Long.MAX_VALUE : 1L << (bucket + 1);
+        }
+
+        /**
+         * @param percentile 取值区间(0, 100]
+         * @return 该分位所在桶的上界，单位微秒；没有记录时返回 0
+         */
+        public long getPercentileMicros(double percentile) {
+            if (mTotal == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(mTotal * percentile / 100);
+            long seen = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                seen += mCounts[i];
+                if (seen >= rank) {
+                    return getUpperBoundMicros(i);
+                }
+            }
+            return getUpperBoundMicros(BUCKET_COUNT - 1);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package rubo.pullswipelayout.pullswipe;
+
+/**
+ * 接收 PullSwipeLayout 导出的刷新各阶段耗时
+ */
+public interface LatencyReporter {
+
+    /**
+     * @param metric 见 PullSwipeLayout.METRIC_* 常量
+     */
+    void report(String metric, LatencyHistogram.Snapshot snapshot);
+}
@@ -7,14 +7,12 @@ import android.graphics.Paint.Style;
 import android.util.AttributeSet;
 import android.view.View;
 import android.view.animation.Animation;
+import android.view.animation.AnimationUtils;
 import android.view.animation.LinearInterpolator;
 import android.view.animation.Transformation;
 
 class LoadingBall extends View implements LoadingProgress {
 
-    static final float SCALE = .4f;
-    static final float DELTA_SCALE = .2f;
-
     static final long DURATION = 900;
 
     static final int COLOR_1 = 0xff990000;
@@ -39,6 +37,9 @@ class LoadingBall extends View implements LoadingProgress {
 
     boolean change;
 
+    long mMinFrameInterval;
+    long mLastDrawTime;
+    boolean mTrailingInvalidate;
 
     public LoadingBall(Context context, AttributeSet attrs) {
         super(context, attrs);
@@ -55,6 +56,7 @@ class LoadingBall extends View implements LoadingProgress {
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
+        mTrailingInvalidate = false;
         float rBallRadius = 2 * mBaseRadius - mCurrentRadius;
         if (change) {
             canvas.drawCircle(mCurrentCx, mHeight / 2, mCurrentRadius, mPaint1);
@@ -70,31 +72,62 @@ class LoadingBall extends View implements LoadingProgress {
      */
     @Override
     public void setProgress(float progress) {
-        mCurrentCx = mBaseRadius + (mWidth - mBaseRadius * 2) * progress;
+        mCurrentCx = PullGeometry.ballCenterX(mBaseRadius, mWidth, progress);
         if (progress > mProgress) {
             resetForegroundRadius(progress);
         } else {
             resetBackgroundRadius(progress);
 
         }
-        invalidate();
+        invalidateThrottled();
         mProgress = progress;
     }
 
-    private void resetForegroundRadius(float progress) {
-        if (progress < .5f) {
-            mCurrentRadius = mBaseRadius + mDeltaRadius * 2 * progress;
-        } else {
-            mCurrentRadius = mBaseRadius + mDeltaRadius * 2 * (1 - progress);
+    private void invalidateThrottled() {
+        if (mMinFrameInterval == 0) {
+            invalidate();
+            return;
+        }
+        long now = AnimationUtils.currentAnimationTimeMillis();
+        long elapsed = now - mLastDrawTime;
+        if (elapsed >= mMinFrameInterval) {
+            mLastDrawTime = now;
+            invalidate();
+        } else if (!mTrailingInvalidate) {
+            // 被跳过的更新要在间隔结束时补画，否则停止拖动后会停在旧的一帧
+            mTrailingInvalidate = true;
+            postInvalidateDelayed(mMinFrameInterval - elapsed);
         }
     }
 
+    /**
+     * @return 进度从 0 到 1 时球心移动的像素数
+     */
+    int getTravelPixels() {
+        return PullGeometry.ballTravelPixels(mBaseRadius, mWidth);
+    }
+
+    void setAntiAlias(boolean antiAlias) {
+        mPaint1.setAntiAlias(antiAlias);
+        mPaint2.setAntiAlias(antiAlias);
+        invalidate();
+    }
+
+    /**
+     * 限制 setProgress 引起的重绘频率，状态仍然逐帧更新
+     *
+     * @param fps 不大于 0 时不限制
+     */
+    void setMaxFrameRate(int fps) {
+        mMinFrameInterval = fps > 0 ? 1000 / fps : 0;
+    }
+
+    private void resetForegroundRadius(float progress) {
+        mCurrentRadius = PullGeometry.ballRadius(mBaseRadius, mDeltaRadius, progress, true);
+    }
+
     private void resetBackgroundRadius(float progress) {
-        if (progress < .5f) {
-            mCurrentRadius = mBaseRadius - mDeltaRadius * 2 * progress;
-        } else {
-            mCurrentRadius = mBaseRadius - mDeltaRadius * 2 * (1 - progress);
-        }
+        mCurrentRadius = PullGeometry.ballRadius(mBaseRadius, mDeltaRadius, progress, false);
     }
 
     @Override
@@ -117,8 +150,8 @@ class LoadingBall extends View implements LoadingProgress {
             mWidth = MeasureSpec.getSize(widthMeasureSpec);
             mHeight = MeasureSpec.getSize(heightMeasureSpec);
 
-            mBaseRadius = mHeight / 2 * SCALE;
-            mDeltaRadius = mHeight / 2 * DELTA_SCALE;
+            mBaseRadius = PullGeometry.ballBaseRadius(mHeight);
+            mDeltaRadius = PullGeometry.ballDeltaRadius(mHeight);
 
             mCurrentRadius = mBaseRadius;
             mCurrentCx = mBaseRadius;
@@ -142,13 +175,8 @@ class LoadingBall extends View implements LoadingProgress {
     private final Animation mProgressAnim = new Animation() {
         @Override
         public void applyTransformation(float interpolatedTime, Transformation t) {
-            if (interpolatedTime < .5f) {
-                change = false;
-                setProgress(interpolatedTime * 2);
-            } else {
-                change = true;
-                setProgress(2 - interpolatedTime * 2);
-            }
+            change = interpolatedTime >= .5f;
+            setProgress(PullGeometry.ballProgress(interpolatedTime));
         }
     };
 
@@ -4,8 +4,6 @@ import android.content.Context;
 import android.util.AttributeSet;
 import android.widget.FrameLayout;
 
-import rubo.pullswipelayout.R;
-
 class LoadingWidget extends FrameLayout implements LoadingProgress {
 
     LoadingBall mLoadingBall;
@@ -36,4 +34,16 @@ class LoadingWidget extends FrameLayout implements LoadingProgress {
     public void resetProgress() {
         mLoadingBall.resetProgress();
     }
+
+    int getTravelPixels() {
+        return mLoadingBall.getTravelPixels();
+    }
+
+    void setAntiAlias(boolean antiAlias) {
+        mLoadingBall.setAntiAlias(antiAlias);
+    }
+
+    void setMaxFrameRate(int fps) {
+        mLoadingBall.setMaxFrameRate(fps);
+    }
 }
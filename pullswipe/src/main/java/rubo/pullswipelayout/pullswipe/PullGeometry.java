@@ -0,0 +1,106 @@
+package rubo.pullswipelayout.pullswipe;
+
+/**
+ * 下拉过程中的纯计算部分，不依赖 Android 类，便于在 JVM 上做基准测试
+ */
+final class PullGeometry {
+
+    /**
+     * 手指移动距离换算为下拉距离的系数
+     */
+    static final float DRAG_RATE = .5f;
+
+    /**
+     * 指示器最终停留位置相对内容最终停留位置的比例
+     */
+    static final float MARGIN_RATE = .25f;
+
+    static final float BALL_SCALE = .4f;
+    static final float BALL_DELTA_SCALE = .2f;
+
+    private PullGeometry() {
+    }
+
+    /**
+     * @param y              当前触点纵坐标
+     * @param initialMotionY 下拉距离的起点
+     * @return 已乘以拖拽系数的下拉距离
+     */
+    static float overScrollTop(float y, float initialMotionY) {
+        return (y - initialMotionY) * DRAG_RATE;
+    }
+
+    /**
+     * @return 下拉距离占触发刷新距离的比例，超过刷新距离时为 1
+     */
+    static float dragFraction(float overScrollTop, float totalDragDistance) {
+        return Math.min(1f, overScrollTop / totalDragDistance);
+    }
+
+    /**
+     * 根据下拉距离计算带阻尼的偏移量
+     *
+     * @param overScrollTop     已乘以拖拽系数的下拉距离
+     * @param totalDragDistance 触发刷新的距离
+     * @param slingshotDist     最终停留位置
+     */
+    static int dragOffset(float overScrollTop, float totalDragDistance, float slingshotDist) {
+        float originalDragPercent = overScrollTop / totalDragDistance;
+
+        float dragPercent = Math.min(1f, Math.abs(originalDragPercent));
+        float extraOS = Math.abs(overScrollTop) - totalDragDistance;
+        float tensionSlingshotPercent = Math.max(0, Math.min(extraOS, slingshotDist * 2) / slingshotDist);
+        float tensionPercent = (float) ((tensionSlingshotPercent / 4) - Math.pow((tensionSlingshotPercent / 4), 2)) * 2f;
+        float extraMove = slingshotDist * tensionPercent * 2;
+
+        return (int) ((slingshotDist * dragPercent) + extraMove);
+    }
+
+    /**
+     * 回弹动画中 from 到 to 之间的位置
+     */
+    static int interpolate(int from, int to, float interpolatedTime) {
+        return from + (int) ((to - from) * interpolatedTime);
+    }
+
+    static float ballBaseRadius(float height) {
+        return height / 2 * BALL_SCALE;
+    }
+
+    static float ballDeltaRadius(float height) {
+        return height / 2 * BALL_DELTA_SCALE;
+    }
+
+    /**
+     * @return 进度从 0 到 1 时球心移动的像素数
+     */
+    static int ballTravelPixels(float baseRadius, float width) {
+        return (int) (width - baseRadius * 2);
+    }
+
+    /**
+     * 加载动画中球的进度：前半个周期从 0 到 1，后半个周期从 1 回到 0
+     *
+     * @param interpolatedTime 取值区间[0, 1]
+     */
+    static float ballProgress(float interpolatedTime) {
+        return interpolatedTime < .5f ? interpolatedTime * 2 : 2 - interpolatedTime * 2;
+    }
+
+    /**
+     * @param progress 取值区间[0, 1]
+     */
+    static float ballCenterX(float baseRadius, float width, float progress) {
+        return baseRadius + (width - baseRadius * 2) * progress;
+    }
+
+    /**
+     * @param foreground true 时为前景球（变大），否则为背景球（变小）
+     */
+    static float ballRadius(float baseRadius, float deltaRadius, float progress, boolean foreground) {
+        float delta = progress < .5f
+                ? deltaRadius * 2 * progress
+                : deltaRadius * 2 * (1 - progress);
+        return foreground ? baseRadius + delta : baseRadius - delta;
+    }
+}
@@ -0,0 +1,1241 @@
+package rubo.pullswipelayout.pullswipe;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.os.Build.VERSION;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.support.v4.view.MotionEventCompat;
+import android.support.v4.view.NestedScrollingChild;
+import android.support.v4.view.NestedScrollingChildHelper;
+import android.support.v4.view.NestedScrollingParent;
+import android.support.v4.view.NestedScrollingParentHelper;
+import android.support.v4.view.ViewCompat;
+import android.support.v4.widget.NestedScrollView;
+import android.util.AttributeSet;
+import android.util.DisplayMetrics;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewConfiguration;
+import android.view.ViewGroup;
+import android.view.ViewParent;
+import android.view.ViewTreeObserver.OnPreDrawListener;
+import android.view.animation.Animation;
+import android.view.animation.Animation.AnimationListener;
+import android.view.animation.AnimationUtils;
+import android.view.animation.DecelerateInterpolator;
+import android.view.animation.Transformation;
+import android.widget.AbsListView;
+import android.widget.FrameLayout;
+import android.widget.ScrollView;
+
+import java.util.concurrent.TimeUnit;
+
+public class PullSwipeLayout extends FrameLayout implements NestedScrollingParent, NestedScrollingChild {
+
+    private static final int DEFAULT_DRAG_DISTANCE = 64;
+    private static final int ANIMATE_TO_START_DURATION = 200;
+
+    private static final float DECELERATE_INTERPOLATION_FACTOR = 2f;
+
+    /**
+     * 画质等级，数值越大画质越低，每一级都包含前面各级的降级
+     */
+    public static final int QUALITY_FULL = 0;
+    public static final int QUALITY_NO_ANTI_ALIAS = 1;
+    public static final int QUALITY_LOW_FRAME_RATE = 2;
+    public static final int QUALITY_NO_BACKGROUND = 3;
+    public static final int QUALITY_SHORT_ANIMATION = 4;
+
+    /**
+     * 刷新各阶段耗时，用于 reportLatencies
+     */
+    public static final String METRIC_PULL_TO_THRESHOLD = "pull_to_threshold";
+    public static final String METRIC_RELEASE_TO_REFRESH = "release_to_refresh";
+    public static final String METRIC_REFRESH = "refresh";
+    public static final String METRIC_SETTLE = "settle";
+
+    /**
+     * 拖拽快照模式：拖拽和回弹期间把内容放到硬件层上，移动时只合成这一层
+     */
+    public static final int SNAPSHOT_OFF = 0;
+    public static final int SNAPSHOT_ALWAYS = 1;
+    public static final int SNAPSHOT_AUTO = 2;
+
+    private static final long DEFAULT_SNAPSHOT_THRESHOLD = 4;
+
+    private static final long SCROLL_TO_TOP_BUDGET = 500;
+
+    private static final long DEFAULT_JANK_THRESHOLD = 24;
+    private static final int LOW_INDICATOR_FRAME_RATE = 30;
+
+
+    private View mTarget;
+    private OnRefreshListener mListener;
+    private boolean mRefreshing = false;
+    private int mTouchSlop;
+    private float mTotalDragDistance = -1;
+
+    private float mSpinnerFinalOffset;
+    private int mCurrentTargetOffsetTop;
+    private float mLWFinalOffset;
+    private int mCurrentLWOffsetTop;
+
+    private float mInitialMotionY;
+    private boolean mIsBeingDragged;
+    private final GestureArbiter mArbiter;
+    private View mSwipeItem;
+    private OnItemSwipeListener mItemSwipeListener;
+
+    private final DecelerateInterpolator mDecelerateInterpolator;
+
+    private float mTotalUnconsumed;
+    private final NestedScrollingParentHelper mNestedScrollingParentHelper;
+    private final NestedScrollingChildHelper mNestedScrollingChildHelper;
+    private final int[] mParentScrollConsumed = new int[2];
+    private final int[] mParentOffsetInWindow = new int[2];
+    private boolean mNestedScrollInProgress;
+
+
+    protected int mFrom;
+    protected int mFromLW;
+
+    ContentLayout mTargetContainer;
+    LoadingWidget mLoadingWidget;
+    View mBackground;
+    private final DragProgressBinding mDragProgress;
+
+    private int mAnimateDuration = ANIMATE_TO_START_DURATION;
+    private int mQualityLevel = QUALITY_FULL;
+    private long mJankThreshold = DEFAULT_JANK_THRESHOLD;
+    FrameMonitor mFrameMonitor;
+    private OnQualityChangeListener mQualityListener;
+
+    private String mRefreshRequestId;
+    private OnRefreshRestoredListener mRestoredListener;
+
+    private boolean mOffsetPending;
+    private int mPendingTargetY;
+    private int mPendingTargetYLW;
+    private float mPendingProgress;
+
+    private int mSnapshotMode = SNAPSHOT_OFF;
+    private long mSnapshotThreshold = DEFAULT_SNAPSHOT_THRESHOLD;
+    private boolean mSnapshotDeclined;
+    private boolean mSnapshotActive;
+    private int mSavedLayerType;
+
+    private ScrollToTopHandler mScrollToTopHandler = DEFAULT_SCROLL_TO_TOP_HANDLER;
+    private boolean mScrollingToTop;
+    private boolean mSmoothScrollStarted;
+    private boolean mJumpedToTop;
+    private long mScrollToTopDeadline;
+
+    private final LatencyHistogram mPullToThresholdLatency = new LatencyHistogram();
+    private final LatencyHistogram mReleaseToRefreshLatency = new LatencyHistogram();
+    private final LatencyHistogram mRefreshLatency = new LatencyHistogram();
+    private final LatencyHistogram mSettleLatency = new LatencyHistogram();
+    private long mPullStartTime;
+    private boolean mThresholdReached;
+    private long mReleaseTime;
+    private long mRefreshStartTime;
+    private long mSettleStartTime;
+
+
+    public PullSwipeLayout(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        final DisplayMetrics metrics = getResources().getDisplayMetrics();
+        inflate(context, R.layout.layout_pull_swipe, this);
+
+        mTouchSlop = ViewConfiguration.get(context).getScaledTouchSlop();
+        mArbiter = new GestureArbiter(mTouchSlop);
+
+        mTargetContainer = (ContentLayout) findViewById(R.id.pull_swipe_content);
+        mLoadingWidget = (LoadingWidget) findViewById(R.id.pull_swipe_loadingWidget);
+        mBackground = findViewById(R.id.pull_swipe_back);
+        mDragProgress = new DragProgressBinding(mLoadingWidget);
+
+        mDecelerateInterpolator = new DecelerateInterpolator(DECELERATE_INTERPOLATION_FACTOR);
+
+        mTotalDragDistance = DEFAULT_DRAG_DISTANCE * metrics.density;
+        mSpinnerFinalOffset = mTotalDragDistance;
+        mLWFinalOffset = mSpinnerFinalOffset * PullGeometry.MARGIN_RATE;
+
+        mNestedScrollingParentHelper = new NestedScrollingParentHelper(this);
+
+        mNestedScrollingChildHelper = new NestedScrollingChildHelper(this);
+        setNestedScrollingEnabled(true);
+    }
+
+    @Override
+    public void addView(View child, ViewGroup.LayoutParams params) {
+        if (child.getId() == R.id.pull_swipe_back
+                || child.getId() == R.id.pull_swipe_content
+                || child.getId() == R.id.pull_swipe_loadingWidget) {
+            super.addView(child, params);
+        } else {
+            mTargetContainer.addView(child, params);
+        }
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+        super.onLayout(changed, left, top, right, bottom);
+        final int tcLeft = getPaddingLeft();
+        int tcWidth = mTargetContainer.getMeasuredWidth();
+        int tcHeight = mTargetContainer.getMeasuredHeight();
+        mTargetContainer.layout(tcLeft, mCurrentTargetOffsetTop,
+                tcLeft + tcWidth, mCurrentTargetOffsetTop + tcHeight);
+        
+        final int lwLeft = getPaddingLeft();
+        int lwWidth = mLoadingWidget.getMeasuredWidth();
+        int lwHeight = mLoadingWidget.getMeasuredHeight();
+        mLoadingWidget.layout(lwLeft, mCurrentLWOffsetTop,
+                lwLeft+lwWidth, mCurrentLWOffsetTop +lwHeight);
+    }
+
+    @Override
+    public boolean onInterceptTouchEvent(MotionEvent ev) {
+        ensureTarget();
+
+        final int action = MotionEventCompat.getActionMasked(ev);
+        if (action == MotionEvent.ACTION_DOWN) {
+            // 用户接手后不再继续滚到顶部并刷新
+            cancelScrollToTop();
+        }
+
+        if (!isEnabled()) {
+            return false;
+        }
+        final boolean canPull = !mRefreshing && !mNestedScrollInProgress && !canChildScrollUp();
+        final boolean canSwipe = mItemSwipeListener != null;
+        if (!canPull && !canSwipe) {
+            return false;
+        }
+
+        switch (action) {
+            case MotionEvent.ACTION_DOWN:
+                if (canPull) {
+                    mOffsetPending = false;
+                    endSnapshot();
+                    setTargetOffsetTopAndBottom(-mTargetContainer.getTop(), -mLoadingWidget.getTop(), true);
+                }
+                mIsBeingDragged = false;
+                mPullStartTime = 0;
+                mThresholdReached = false;
+                mSnapshotDeclined = false;
+                if (!mArbiter.onDown(ev)) {
+                    return false;
+                }
+                mSwipeItem = canSwipe ? findItemUnder(ev.getX(), ev.getY()) : null;
+                break;
+
+            case MotionEvent.ACTION_MOVE:
+                if (!mArbiter.hasActivePointer()) {
+                    return false;
+                }
+                mArbiter.addMovement(ev);
+                if (!mIsBeingDragged && mArbiter.getGesture() == GestureArbiter.GESTURE_NONE) {
+                    final int gesture = mArbiter.classify(ev, canPull, mSwipeItem != null);
+                    if (gesture == GestureArbiter.GESTURE_PULL) {
+                        mInitialMotionY = mArbiter.getPullStartY();
+                        mIsBeingDragged = true;
+                        startFrameMonitor();
+                    } else if (gesture == GestureArbiter.GESTURE_ITEM_SWIPE) {
+                        startItemSwipe();
+                    }
+                }
+                break;
+
+            case MotionEventCompat.ACTION_POINTER_UP:
+                mArbiter.onSecondaryPointerUp(ev);
+                break;
+
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                mIsBeingDragged = false;
+                mSwipeItem = null;
+                mArbiter.reset();
+                break;
+        }
+
+        return mIsBeingDragged || mArbiter.getGesture() == GestureArbiter.GESTURE_ITEM_SWIPE;
+    }
+
+    /**
+     * @return 内容中位于 (x, y) 处的直接子 View，即列表的条目
+     */
+    private View findItemUnder(float x, float y) {
+        if (!(mTarget instanceof ViewGroup)) {
+            return null;
+        }
+        final ViewGroup target = (ViewGroup) mTarget;
+        final float localX = x - mTargetContainer.getLeft() - target.getLeft() + target.getScrollX();
+        final float localY = y - mTargetContainer.getTop() - target.getTop() + target.getScrollY();
+        for (int i = target.getChildCount() - 1; i >= 0; i--) {
+            final View child = target.getChildAt(i);
+            if (child.getVisibility() == VISIBLE
+                    && localX >= child.getLeft() && localX < child.getRight()
+                    && localY >= child.getTop() && localY < child.getBottom()) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    private void startItemSwipe() {
+        if (mItemSwipeListener.onItemSwipeStart(mSwipeItem)) {
+            final ViewParent parent = getParent();
+            if (parent != null) {
+                parent.requestDisallowInterceptTouchEvent(true);
+            }
+        } else {
+            mArbiter.rejectSwipe();
+        }
+    }
+
+    private boolean onItemSwipeTouchEvent(MotionEvent event) {
+        mArbiter.addMovement(event);
+        final float x = mArbiter.getX(event);
+        final float dx = x == -1 ? 0 : x - mArbiter.getInitialDownX();
+
+        switch (MotionEventCompat.getActionMasked(event)) {
+            case MotionEvent.ACTION_MOVE:
+                mItemSwipeListener.onItemSwipe(mSwipeItem, dx);
+                break;
+
+            case MotionEventCompat.ACTION_POINTER_DOWN:
+                mArbiter.onPointerDown(event);
+                break;
+
+            case MotionEventCompat.ACTION_POINTER_UP:
+                mArbiter.onSecondaryPointerUp(event);
+                break;
+
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL: {
+                final boolean up = MotionEventCompat.getActionMasked(event) == MotionEvent.ACTION_UP;
+                final float velocityX = up ? mArbiter.computeXVelocity() : 0;
+                final View item = mSwipeItem;
+                mSwipeItem = null;
+                mArbiter.reset();
+                mItemSwipeListener.onItemSwipeEnd(item, dx, velocityX);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void ensureTarget() {
+        if (mTarget == null) {
+            if (mTargetContainer.getChildCount() != 1) {
+                throw new RuntimeException("PullSwipeLayout有且只有一个child");
+            }
+            mTarget = mTargetContainer.getChildAt(0);
+        }
+    }
+
+    public boolean canChildScrollUp() {
+        if (VERSION.SDK_INT < 14) {
+            if (mTarget instanceof AbsListView) {
+                final AbsListView absListView = (AbsListView) mTarget;
+                return absListView.getChildCount() > 0
+                        && (absListView.getFirstVisiblePosition() > 0 || absListView.getChildAt(0)
+                        .getTop() < absListView.getPaddingTop());
+            } else {
+                return ViewCompat.canScrollVertically(mTarget, -1) || mTarget.getScrollY() > 0;
+            }
+        } else {
+            return ViewCompat.canScrollVertically(mTarget, -1);
+        }
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        final int action = MotionEventCompat.getActionMasked(event);
+
+        if (!isEnabled()) {
+            return false;
+        }
+        if (mArbiter.getGesture() == GestureArbiter.GESTURE_ITEM_SWIPE && mItemSwipeListener != null) {
+            return onItemSwipeTouchEvent(event);
+        }
+        if (canChildScrollUp() || mNestedScrollInProgress) {
+            return false;
+        }
+
+        switch (action) {
+            case MotionEvent.ACTION_DOWN:
+                mArbiter.onDown(event);
+                mIsBeingDragged = false;
+                break;
+
+            case MotionEvent.ACTION_MOVE: {
+                mArbiter.addMovement(event);
+                final float y = mArbiter.getY(event);
+                if (y == -1) {
+                    return false;
+                }
+                final float overScrollTop = PullGeometry.overScrollTop(y, mInitialMotionY);
+                if (mIsBeingDragged) {
+                    if (overScrollTop > 0) {
+                        moveContent(overScrollTop);
+                    } else {
+                        return false;
+                    }
+                }
+                break;
+            }
+            case MotionEventCompat.ACTION_POINTER_DOWN:
+                mArbiter.onPointerDown(event);
+                break;
+
+            case MotionEventCompat.ACTION_POINTER_UP:
+                mArbiter.onSecondaryPointerUp(event);
+                break;
+
+            case MotionEvent.ACTION_UP: {
+                final float y = mArbiter.getY(event);
+                if (y == -1) {
+                    return false;
+                }
+
+                final float overScrollTop = PullGeometry.overScrollTop(y, mInitialMotionY);
+                mIsBeingDragged = false;
+                finishContent(overScrollTop);
+                mArbiter.reset();
+                return false;
+            }
+
+            case MotionEvent.ACTION_CANCEL:
+                stopFrameMonitor();
+                mArbiter.reset();
+                return false;
+        }
+        return true;
+    }
+
+
+    private void finishContent(float overScrollTop) {
+        applyPendingOffset();
+        if (overScrollTop > mTotalDragDistance) {
+            mReleaseTime = System.nanoTime();
+            setRefreshing(true, true);
+        } else {
+            mRefreshing = false;
+            animateOffsetToStartPosition(mCurrentTargetOffsetTop, mCurrentLWOffsetTop);
+        }
+    }
+
+    public boolean isRefreshing() {
+        return mRefreshing;
+    }
+
+    public void setRefreshing(boolean refreshing) {
+        if (!refreshing) {
+            mRefreshRequestId = null;
+            cancelScrollToTop();
+            if (mRefreshStartTime != 0) {
+                recordSince(mRefreshLatency, mRefreshStartTime);
+                mRefreshStartTime = 0;
+            }
+        }
+        if (refreshing && !mRefreshing) {
+            // scale and show
+            applyPendingOffset();
+            mRefreshing = true;
+            setTargetOffsetTopAndBottom((int) (mSpinnerFinalOffset - mCurrentTargetOffsetTop),
+                    (int) (mLWFinalOffset - mCurrentLWOffsetTop), true);
+            mNotify = false;
+            animateOffsetToCorrectPosition(mCurrentTargetOffsetTop, mCurrentLWOffsetTop, mRefreshListener);
+            mLoadingWidget.startProgress();
+        } else {
+            setRefreshing(refreshing, false);
+        }
+    }
+
+    private void setRefreshing(boolean refreshing, final boolean notify) {
+        if (mRefreshing != refreshing) {
+            mNotify = notify;
+            ensureTarget();
+            mRefreshing = refreshing;
+            if (mRefreshing) {
+                animateOffsetToCorrectPosition(mCurrentTargetOffsetTop, mCurrentLWOffsetTop, mRefreshListener);
+            } else {
+                animateOffsetToStartPosition(mCurrentTargetOffsetTop, mCurrentLWOffsetTop);
+            }
+        }
+    }
+
+    private void animateOffsetToStartPosition(int from, int fromLW) {
+        mFrom = from;
+        mFromLW = fromLW;
+
+        mAnimateToStartPosition.reset();
+        mAnimateToStartPosition.setDuration(mAnimateDuration);
+        mAnimateToStartPosition.setInterpolator(mDecelerateInterpolator);
+        mAnimateToStartPosition.setAnimationListener(mRefreshListener);
+        // 打断正在进行的回弹时 clearAnimation 会先回调 onAnimationEnd 记录上一段，之后再开始计时
+        mTargetContainer.clearAnimation();
+        mSettleStartTime = System.nanoTime();
+        mTargetContainer.startAnimation(mAnimateToStartPosition);
+        startFrameMonitor();
+    }
+
+    private void animateOffsetToCorrectPosition(int from, int fromLW, AnimationListener listener) {
+        mFrom = from;
+        mFromLW = fromLW;
+
+        mAnimateToCorrectPosition.reset();
+        mAnimateToCorrectPosition.setDuration(mAnimateDuration);
+        if (listener != null) {
+            mAnimateToCorrectPosition.setAnimationListener(listener);
+        }
+        mAnimateToCorrectPosition.setInterpolator(mDecelerateInterpolator);
+        // 打断正在进行的回弹时 clearAnimation 会先回调 onAnimationEnd 记录上一段，之后再开始计时
+        mTargetContainer.clearAnimation();
+        mSettleStartTime = System.nanoTime();
+        mTargetContainer.startAnimation(mAnimateToCorrectPosition);
+        startFrameMonitor();
+    }
+
+    private final Animation mAnimateToStartPosition = new Animation() {
+        @Override
+        public void applyTransformation(float interpolatedTime, Transformation t) {
+            moveToStart(interpolatedTime);
+        }
+    };
+
+    private final Animation mAnimateToCorrectPosition = new Animation() {
+        @Override
+        protected void applyTransformation(float interpolatedTime, Transformation t) {
+            int targetTop = PullGeometry.interpolate(mFrom, (int) mSpinnerFinalOffset, interpolatedTime);
+            int offset = targetTop - mTargetContainer.getTop();
+
+            int targetTopLW = PullGeometry.interpolate(mFromLW, (int) mLWFinalOffset, interpolatedTime);
+            int offsetLW = targetTopLW - mLoadingWidget.getTop();
+            setTargetOffsetTopAndBottom(offset, offsetLW, false /* requires update */);
+        }
+    };
+
+    private boolean mNotify;
+    private AnimationListener mRefreshListener = new AnimationListener() {
+        @Override
+        public void onAnimationStart(Animation animation) {
+        }
+
+        @Override
+        public void onAnimationEnd(Animation animation) {
+            if (mSettleStartTime != 0) {
+                recordSince(mSettleLatency, mSettleStartTime);
+                mSettleStartTime = 0;
+            }
+            if (mRefreshing) {
+                if (mNotify) {
+                    mNotify = false;
+                    if (mListener != null) {
+                        if (mReleaseTime != 0) {
+                            recordSince(mReleaseToRefreshLatency, mReleaseTime);
+                            mReleaseTime = 0;
+                        }
+                        mRefreshStartTime = System.nanoTime();
+                        mListener.onRefresh();
+                        mLoadingWidget.startProgress();
+                    }
+                }
+                mCurrentTargetOffsetTop = mTargetContainer.getTop();
+                mCurrentLWOffsetTop = mLoadingWidget.getTop();
+                stopFrameMonitor();
+                endSnapshot();
+            } else {
+                reset();
+            }
+        }
+
+        @Override
+        public void onAnimationRepeat(Animation animation) {
+        }
+    };
+
+    private void reset() {
+        mOffsetPending = false;
+        stopFrameMonitor();
+        mLoadingWidget.resetProgress();
+        mDragProgress.reset();
+        mTargetContainer.clearAnimation();
+        endSnapshot();
+        setTargetOffsetTopAndBottom(-mCurrentTargetOffsetTop, -mCurrentLWOffsetTop, true);
+        mCurrentTargetOffsetTop = mTargetContainer.getTop();
+        mCurrentLWOffsetTop = mLoadingWidget.getTop();
+    }
+
+    private void moveToStart(float interpolatedTime) {
+        int targetTop = PullGeometry.interpolate(mFrom, 0, interpolatedTime);
+        int offset = targetTop - mTargetContainer.getTop();
+
+        int targetTopLW = PullGeometry.interpolate(mFromLW, 0, interpolatedTime);
+        int offsetLW = targetTopLW - mLoadingWidget.getTop();
+
+        setTargetOffsetTopAndBottom(offset, offsetLW, false /* requires update */);
+    }
+
+    private void moveToCorrect(float interpolatedTime) {
+        int targetTop = (int) (mSpinnerFinalOffset - mSpinnerFinalOffset * interpolatedTime);
+        int offset = targetTop - mTargetContainer.getTop();
+
+        int targetTopLW = (int) (mLWFinalOffset - mLWFinalOffset * interpolatedTime);
+        int offsetLW = targetTopLW - mLoadingWidget.getTop();
+
+        setTargetOffsetTopAndBottom(offset, offsetLW, false /* requires update */);
+    }
+
+    private void setTargetOffsetTopAndBottom(int offset, int offsetLW, boolean requiresUpdate) {
+        mTargetContainer.offsetTopAndBottom(offset);
+        mLoadingWidget.offsetTopAndBottom(offsetLW);
+
+        mCurrentTargetOffsetTop = mTargetContainer.getTop();
+        mCurrentLWOffsetTop = mLoadingWidget.getTop();
+
+        if (requiresUpdate && VERSION.SDK_INT < 11) {
+            invalidate();
+        }
+    }
+
+    private void moveContent(float overScrollTop) {
+        if (mPullStartTime == 0) {
+            mPullStartTime = System.nanoTime();
+        }
+        if (!mThresholdReached && overScrollTop > mTotalDragDistance) {
+            mThresholdReached = true;
+            recordSince(mPullToThresholdLatency, mPullStartTime);
+        }
+
+        if (overScrollTop > 0) {
+            // 只统计下拉期间的帧，嵌套滑动开始时还不确定是下拉还是普通的列表滚动
+            startFrameMonitor();
+            startSnapshotIfNeeded();
+        }
+
+        // 同一帧内的多次移动只记录最终位置，在下一次绘制前统一应用
+        mPendingTargetY = PullGeometry.dragOffset(overScrollTop, mTotalDragDistance, mSpinnerFinalOffset);
+        mPendingTargetYLW = PullGeometry.dragOffset(overScrollTop, mTotalDragDistance, mLWFinalOffset);
+        mPendingProgress = PullGeometry.dragFraction(overScrollTop, mTotalDragDistance);
+        if (!mOffsetPending) {
+            mOffsetPending = true;
+            ViewCompat.postInvalidateOnAnimation(this);
+        }
+    }
+
+    private void applyPendingOffset() {
+        if (!mOffsetPending) {
+            return;
+        }
+        mOffsetPending = false;
+        setTargetOffsetTopAndBottom(mPendingTargetY - mCurrentTargetOffsetTop,
+                mPendingTargetYLW - mCurrentLWOffsetTop, true);
+        mDragProgress.bind(mPendingProgress, mLoadingWidget.getTravelPixels());
+        if (mPendingTargetY == 0) {
+            // 嵌套滑动中拉回原位后内容会继续滚动，不再需要硬件层
+            endSnapshot();
+        }
+    }
+
+    /**
+     * 下拉过程中指示器进度的量化步数，只有进度落到新的一步时才重绘指示器
+     *
+     * @param steps 不大于 0 时按指示器移动的像素量化，即每移动 1 像素重绘一次
+     */
+    public void setDragProgressSteps(int steps) {
+        mDragProgress.setSteps(steps);
+    }
+
+    /**
+     * @param mode SNAPSHOT_OFF、SNAPSHOT_ALWAYS 或 SNAPSHOT_AUTO。
+     *             SNAPSHOT_AUTO 时只有内容最近的绘制耗时超过 setDragSnapshotThreshold 才使用快照。
+     *             快照是内容上的硬件层，窗口没有开启硬件加速时不生效
+     */
+    public void setDragSnapshotMode(int mode) {
+        mSnapshotMode = mode;
+        mTargetContainer.setDrawCostSampling(mode == SNAPSHOT_AUTO);
+        if (mode == SNAPSHOT_OFF) {
+            endSnapshot();
+        }
+    }
+
+    public void setDragSnapshotThreshold(long millis) {
+        mSnapshotThreshold = millis;
+    }
+
+    private void startSnapshotIfNeeded() {
+        if (mSnapshotMode == SNAPSHOT_OFF || mSnapshotActive || mSnapshotDeclined) {
+            return;
+        }
+        // 每个手势只判断一次
+        mSnapshotDeclined = true;
+        if (!isHardwareAccelerated()) {
+            return;
+        }
+        if (mSnapshotMode == SNAPSHOT_AUTO && mTargetContainer.getDrawCost() < mSnapshotThreshold * 1000000) {
+            return;
+        }
+
+        // 这里只设置标记，硬件层在下一次绘制时由渲染线程生成；
+        // 之后移动内容只合成这一层，不再逐帧重放整个内容的 display list
+        mSnapshotActive = true;
+        mSavedLayerType = ViewCompat.getLayerType(mTargetContainer);
+        ViewCompat.setLayerType(mTargetContainer, ViewCompat.LAYER_TYPE_HARDWARE, null);
+    }
+
+    private void endSnapshot() {
+        if (!mSnapshotActive) {
+            return;
+        }
+        mSnapshotActive = false;
+        ViewCompat.setLayerType(mTargetContainer, mSavedLayerType, null);
+    }
+
+    private final OnPreDrawListener mPreDrawListener = new OnPreDrawListener() {
+        @Override
+        public boolean onPreDraw() {
+            applyPendingOffset();
+            if (mSnapshotMode == SNAPSHOT_AUTO && mTargetContainer.isDirty()) {
+                // 内容里的 View 自行重绘时容器本身不会重建，这里让容器一起重建，
+                // 容器的 dispatchDraw 才能计入这次重绘的耗时
+                mTargetContainer.invalidate();
+            }
+            return true;
+        }
+    };
+
+    @Override
+    public void requestDisallowInterceptTouchEvent(boolean b) {
+        if ((VERSION.SDK_INT < 21 && mTarget instanceof AbsListView)
+                || (mTarget != null && !ViewCompat.isNestedScrollingEnabled(mTarget))) {
+            // no-op
+        } else {
+            super.requestDisallowInterceptTouchEvent(b);
+        }
+    }
+
+    @Override
+    public boolean onStartNestedScroll(View child, View target, int nestedScrollAxes) {
+        return isEnabled() && !mRefreshing
+                && (nestedScrollAxes & ViewCompat.SCROLL_AXIS_VERTICAL) != 0;
+    }
+
+    @Override
+    public void onNestedScrollAccepted(View child, View target, int axes) {
+        mNestedScrollingParentHelper.onNestedScrollAccepted(child, target, axes);
+        startNestedScroll(axes & ViewCompat.SCROLL_AXIS_VERTICAL);
+        mTotalUnconsumed = 0;
+        mNestedScrollInProgress = true;
+        mPullStartTime = 0;
+        mThresholdReached = false;
+        mSnapshotDeclined = false;
+    }
+
+    @Override
+    public void onNestedPreScroll(View target, int dx, int dy, int[] consumed) {
+        if (dy > 0 && mTotalUnconsumed > 0) {
+            if (dy > mTotalUnconsumed) {
+                consumed[1] = dy - (int) mTotalUnconsumed;
+                mTotalUnconsumed = 0;
+            } else {
+                mTotalUnconsumed -= dy;
+                consumed[1] = dy;
+            }
+            moveContent(mTotalUnconsumed);
+            if (mTotalUnconsumed == 0) {
+                // 拉回原位后剩下的是列表自身的滚动
+                stopFrameMonitor();
+            }
+        }
+
+        final int[] parentConsumed = mParentScrollConsumed;
+        if (dispatchNestedPreScroll(dx - consumed[0], dy - consumed[1], parentConsumed, null)) {
+            consumed[0] += parentConsumed[0];
+            consumed[1] += parentConsumed[1];
+        }
+    }
+
+    @Override
+    public int getNestedScrollAxes() {
+        return mNestedScrollingParentHelper.getNestedScrollAxes();
+    }
+
+    @Override
+    public void onStopNestedScroll(View target) {
+        mNestedScrollingParentHelper.onStopNestedScroll(target);
+        mNestedScrollInProgress = false;
+        if (mTotalUnconsumed > 0) {
+            finishContent(mTotalUnconsumed);
+            mTotalUnconsumed = 0;
+        } else {
+            stopFrameMonitor();
+        }
+        stopNestedScroll();
+    }
+
+    @Override
+    public void onNestedScroll(final View target, final int dxConsumed, final int dyConsumed,
+                               final int dxUnconsumed, final int dyUnconsumed) {
+        dispatchNestedScroll(dxConsumed, dyConsumed, dxUnconsumed, dyUnconsumed,
+                mParentOffsetInWindow);
+
+        final int dy = dyUnconsumed + mParentOffsetInWindow[1];
+        if (dy < 0 && !canChildScrollUp()) {
+            mTotalUnconsumed += Math.abs(dy);
+            moveContent(mTotalUnconsumed);
+        }
+    }
+
+    @Override
+    public void setNestedScrollingEnabled(boolean enabled) {
+        mNestedScrollingChildHelper.setNestedScrollingEnabled(enabled);
+    }
+
+    @Override
+    public boolean isNestedScrollingEnabled() {
+        return mNestedScrollingChildHelper.isNestedScrollingEnabled();
+    }
+
+    @Override
+    public boolean startNestedScroll(int axes) {
+        return mNestedScrollingChildHelper.startNestedScroll(axes);
+    }
+
+    @Override
+    public void stopNestedScroll() {
+        mNestedScrollingChildHelper.stopNestedScroll();
+    }
+
+    @Override
+    public boolean hasNestedScrollingParent() {
+        return mNestedScrollingChildHelper.hasNestedScrollingParent();
+    }
+
+    @Override
+    public boolean dispatchNestedScroll(int dxConsumed, int dyConsumed, int dxUnconsumed,
+                                        int dyUnconsumed, int[] offsetInWindow) {
+        return mNestedScrollingChildHelper.dispatchNestedScroll(dxConsumed, dyConsumed,
+                dxUnconsumed, dyUnconsumed, offsetInWindow);
+    }
+
+    @Override
+    public boolean dispatchNestedPreScroll(int dx, int dy, int[] consumed, int[] offsetInWindow) {
+        return mNestedScrollingChildHelper.dispatchNestedPreScroll(dx, dy, consumed, offsetInWindow);
+    }
+
+    @Override
+    public boolean onNestedPreFling(View target, float velocityX,
+                                    float velocityY) {
+        return dispatchNestedPreFling(velocityX, velocityY);
+    }
+
+    @Override
+    public boolean onNestedFling(View target, float velocityX, float velocityY,
+                                 boolean consumed) {
+        return dispatchNestedFling(velocityX, velocityY, consumed);
+    }
+
+    @Override
+    public boolean dispatchNestedFling(float velocityX, float velocityY, boolean consumed) {
+        return mNestedScrollingChildHelper.dispatchNestedFling(velocityX, velocityY, consumed);
+    }
+
+    @Override
+    public boolean dispatchNestedPreFling(float velocityX, float velocityY) {
+        return mNestedScrollingChildHelper.dispatchNestedPreFling(velocityX, velocityY);
+    }
+
+    /**
+     * 记录正在进行的刷新请求，随 onSaveInstanceState 一起保存，刷新结束时清空。
+     * 只有设置了 requestId 时才会保存并在重建后恢复刷新状态，否则重建后回到未刷新状态；
+     * 另外 PullSwipeLayout 本身需要有 android:id，系统才会调用 onSaveInstanceState
+     */
+    public void setRefreshRequestId(String requestId) {
+        mRefreshRequestId = requestId;
+    }
+
+    public String getRefreshRequestId() {
+        return mRefreshRequestId;
+    }
+
+    public void setOnRefreshRestoredListener(OnRefreshRestoredListener listener) {
+        mRestoredListener = listener;
+    }
+
+    @Override
+    protected Parcelable onSaveInstanceState() {
+        SavedState ss = new SavedState(super.onSaveInstanceState());
+        // 没有 requestId 说明调用方无法接回请求；onRefresh 还没回调时也没有请求可接回
+        ss.refreshing = mRefreshing && !mNotify && mRefreshRequestId != null;
+        ss.requestId = mRefreshRequestId;
+        return ss;
+    }
+
+    @Override
+    protected void onRestoreInstanceState(Parcelable state) {
+        if (!(state instanceof SavedState)) {
+            super.onRestoreInstanceState(state);
+            return;
+        }
+        SavedState ss = (SavedState) state;
+        super.onRestoreInstanceState(ss.getSuperState());
+
+        mRefreshRequestId = ss.requestId;
+        if (ss.refreshing && ss.requestId != null && !mRefreshing) {
+            restoreRefreshing();
+        }
+    }
+
+    /**
+     * 直接回到刷新位置，不播放进入动画，也不回调 onRefresh
+     */
+    private void restoreRefreshing() {
+        mRefreshing = true;
+        mNotify = false;
+        mOffsetPending = false;
+        mTargetContainer.clearAnimation();
+        endSnapshot();
+        setTargetOffsetTopAndBottom((int) mSpinnerFinalOffset - mCurrentTargetOffsetTop,
+                (int) mLWFinalOffset - mCurrentLWOffsetTop, true);
+        mLoadingWidget.startProgress();
+
+        if (mRestoredListener != null) {
+            mRestoredListener.onRefreshRestored(mRefreshRequestId);
+        }
+    }
+
+    static class SavedState extends BaseSavedState {
+        boolean refreshing;
+        String requestId;
+
+        SavedState(Parcelable superState) {
+            super(superState);
+        }
+
+        private SavedState(Parcel in) {
+            super(in);
+            refreshing = in.readInt() != 0;
+            requestId = in.readString();
+        }
+
+        @Override
+        public void writeToParcel(Parcel out, int flags) {
+            super.writeToParcel(out, flags);
+            out.writeInt(refreshing ? 1 : 0);
+            out.writeString(requestId);
+        }
+
+        public static final Parcelable.Creator<SavedState> CREATOR = new Parcelable.Creator<SavedState>() {
+            @Override
+            public SavedState createFromParcel(Parcel in) {
+                return new SavedState(in);
+            }
+
+            @Override
+            public SavedState[] newArray(int size) {
+                return new SavedState[size];
+            }
+        };
+    }
+
+    /**
+     * 先跳到距顶部约一屏的位置，再平滑滚到顶部，到顶后立即开始刷新并回调 onRefresh。
+     * 超过 SCROLL_TO_TOP_BUDGET 仍未到顶时停止滚动并直接跳到顶部，跳转后确实到顶才开始刷新，
+     * 否则放弃本次刷新，不会在内容中间打开刷新头。
+     * 滚动期间用户按下会取消本次滚动和刷新。
+     * 内容不是默认实现支持的控件且没有 setScrollToTopHandler 时，不在顶部就什么也不做
+     */
+    public void scrollToTopAndRefresh() {
+        ensureTarget();
+        if (mRefreshing || mScrollingToTop) {
+            return;
+        }
+        if (!canChildScrollUp()) {
+            setRefreshing(true, true);
+            return;
+        }
+        if (mScrollToTopHandler == DEFAULT_SCROLL_TO_TOP_HANDLER && !isDefaultScrollable(mTarget)) {
+            return;
+        }
+        mScrollingToTop = true;
+        mSmoothScrollStarted = false;
+        mJumpedToTop = false;
+        mScrollToTopDeadline = AnimationUtils.currentAnimationTimeMillis() + SCROLL_TO_TOP_BUDGET;
+        mScrollToTopHandler.jumpNearTop(mTarget);
+        // 等跳转后的布局完成再开始平滑滚动
+        removeCallbacks(mScrollToTopRunnable);
+        ViewCompat.postOnAnimation(this, mScrollToTopRunnable);
+    }
+
+    /**
+     * @param handler 为 null 时使用默认实现，只支持 AbsListView、ScrollView 和 NestedScrollView
+     */
+    public void setScrollToTopHandler(ScrollToTopHandler handler) {
+        mScrollToTopHandler = handler != null ? handler : DEFAULT_SCROLL_TO_TOP_HANDLER;
+    }
+
+    private void cancelScrollToTop() {
+        mScrollingToTop = false;
+        removeCallbacks(mScrollToTopRunnable);
+    }
+
+    private final Runnable mScrollToTopRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (!mScrollingToTop) {
+                return;
+            }
+            if (mJumpedToTop) {
+                // 跳转后的布局已经完成，仍未到顶说明 handler 没能跳到顶部，放弃刷新
+                mScrollingToTop = false;
+                if (!canChildScrollUp()) {
+                    setRefreshing(true, true);
+                }
+                return;
+            }
+            if (!mSmoothScrollStarted) {
+                mSmoothScrollStarted = true;
+                mScrollToTopHandler.smoothScrollToTop(mTarget);
+            } else if (!canChildScrollUp()) {
+                mScrollingToTop = false;
+                setRefreshing(true, true);
+                return;
+            } else if (AnimationUtils.currentAnimationTimeMillis() >= mScrollToTopDeadline) {
+                // 不能在列表中间打开刷新头，停止平滑滚动并直接跳到顶部，下一帧确认到顶后再刷新
+                mJumpedToTop = true;
+                mScrollToTopHandler.jumpToTop(mTarget);
+            }
+            ViewCompat.postOnAnimation(PullSwipeLayout.this, this);
+        }
+    };
+
+    private static final ScrollToTopHandler DEFAULT_SCROLL_TO_TOP_HANDLER = new ScrollToTopHandler() {
+        @Override
+        public void jumpNearTop(View target) {
+            if (target instanceof AbsListView) {
+                final AbsListView listView = (AbsListView) target;
+                final int visibleCount = listView.getChildCount();
+                if (listView.getFirstVisiblePosition() > visibleCount) {
+                    listView.setSelection(visibleCount);
+                }
+            } else if (target instanceof ScrollView || target instanceof NestedScrollView) {
+                if (target.getScrollY() > target.getHeight()) {
+                    target.scrollTo(target.getScrollX(), target.getHeight());
+                }
+            }
+        }
+
+        @Override
+        public void smoothScrollToTop(View target) {
+            if (target instanceof AbsListView) {
+                ((AbsListView) target).smoothScrollToPosition(0);
+            } else if (target instanceof ScrollView) {
+                ((ScrollView) target).smoothScrollTo(target.getScrollX(), 0);
+            } else if (target instanceof NestedScrollView) {
+                ((NestedScrollView) target).smoothScrollTo(target.getScrollX(), 0);
+            }
+        }
+
+        @Override
+        public void jumpToTop(View target) {
+            if (target instanceof AbsListView) {
+                final AbsListView listView = (AbsListView) target;
+                // 距离为 0 的 smoothScrollBy 会结束 fling 和 smoothScrollToPosition
+                listView.smoothScrollBy(0, 0);
+                listView.setSelection(0);
+            } else if (target instanceof ScrollView) {
+                target.scrollTo(target.getScrollX(), 0);
+                // 已经在顶部，距离为 0 的 smoothScrollTo 会替换掉尚未结束的平滑滚动
+                ((ScrollView) target).smoothScrollTo(target.getScrollX(), 0);
+            } else if (target instanceof NestedScrollView) {
+                target.scrollTo(target.getScrollX(), 0);
+                ((NestedScrollView) target).smoothScrollTo(target.getScrollX(), 0);
+            }
+        }
+    };
+
+    private static boolean isDefaultScrollable(View target) {
+        return target instanceof AbsListView || target instanceof ScrollView || target instanceof NestedScrollView;
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        getViewTreeObserver().addOnPreDrawListener(mPreDrawListener);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        getViewTreeObserver().removeOnPreDrawListener(mPreDrawListener);
+        endSnapshot();
+        stopFrameMonitor();
+        cancelScrollToTop();
+    }
+
+    /**
+     * 开启后在手势和回弹期间统计帧耗时，掉帧时逐级降低画质，流畅后逐级恢复。需要 API 16
+     */
+    public void setAdaptiveQualityEnabled(boolean enabled) {
+        if (enabled) {
+            if (mFrameMonitor == null && VERSION.SDK_INT >= 16) {
+                mFrameMonitor = new FrameMonitor(mQualityCallback, mJankThreshold * 1000000);
+            }
+        } else {
+            stopFrameMonitor();
+            mFrameMonitor = null;
+            setQualityLevel(QUALITY_FULL);
+        }
+    }
+
+    /**
+     * @param millis 帧间隔超过该值即视为掉帧
+     */
+    public void setJankThreshold(long millis) {
+        mJankThreshold = millis;
+        if (mFrameMonitor != null) {
+            mFrameMonitor.setJankThresholdNanos(millis * 1000000);
+        }
+    }
+
+    public int getQualityLevel() {
+        return mQualityLevel;
+    }
+
+    public void setOnQualityChangeListener(OnQualityChangeListener listener) {
+        mQualityListener = listener;
+    }
+
+    /**
+     * 导出刷新各阶段的耗时直方图，可在任意线程调用
+     *
+     * @param reset 导出后是否清零
+     */
+    public void reportLatencies(LatencyReporter reporter, boolean reset) {
+        reporter.report(METRIC_PULL_TO_THRESHOLD, snapshot(mPullToThresholdLatency, reset));
+        reporter.report(METRIC_RELEASE_TO_REFRESH, snapshot(mReleaseToRefreshLatency, reset));
+        reporter.report(METRIC_REFRESH, snapshot(mRefreshLatency, reset));
+        reporter.report(METRIC_SETTLE, snapshot(mSettleLatency, reset));
+    }
+
+    private static LatencyHistogram.Snapshot snapshot(LatencyHistogram histogram, boolean reset) {
+        return reset ? histogram.snapshotAndReset() : histogram.snapshot();
+    }
+
+    private static void recordSince(LatencyHistogram histogram, long startNanos) {
+        histogram.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void startFrameMonitor() {
+        if (mFrameMonitor != null) {
+            mFrameMonitor.start();
+        }
+    }
+
+    private void stopFrameMonitor() {
+        if (mFrameMonitor != null) {
+            mFrameMonitor.stop();
+        }
+    }
+
+    private final FrameMonitor.Callback mQualityCallback = new FrameMonitor.Callback() {
+        @Override
+        public void onDegrade() {
+            if (mQualityLevel < QUALITY_SHORT_ANIMATION) {
+                setQualityLevel(mQualityLevel + 1);
+            }
+        }
+
+        @Override
+        public void onRecover() {
+            if (mQualityLevel > QUALITY_FULL) {
+                setQualityLevel(mQualityLevel - 1);
+            }
+        }
+    };
+
+    private void setQualityLevel(int level) {
+        if (level == mQualityLevel) {
+            return;
+        }
+        final int oldLevel = mQualityLevel;
+        mQualityLevel = level;
+
+        mLoadingWidget.setAntiAlias(level < QUALITY_NO_ANTI_ALIAS);
+        mLoadingWidget.setMaxFrameRate(level >= QUALITY_LOW_FRAME_RATE ? LOW_INDICATOR_FRAME_RATE : 0);
+        mBackground.setVisibility(level >= QUALITY_NO_BACKGROUND ? INVISIBLE : VISIBLE);
+        mAnimateDuration = level >= QUALITY_SHORT_ANIMATION
+                ? ANIMATE_TO_START_DURATION / 2 : ANIMATE_TO_START_DURATION;
+
+        if (mQualityListener != null) {
+            mQualityListener.onQualityChanged(oldLevel, level);
+        }
+    }
+
+    public void setOnRefreshListener(OnRefreshListener listener) {
+        mListener = listener;
+    }
+
+    public interface OnRefreshListener {
+        void onRefresh();
+    }
+
+    public void setOnItemSwipeListener(OnItemSwipeListener listener) {
+        mItemSwipeListener = listener;
+    }
+
+    /**
+     * 列表条目的横向滑动，与下拉刷新共用同一套手势判定
+     */
+    public interface OnItemSwipeListener {
+        /**
+         * 判定为横滑时回调，返回 false 表示该条目不支持横滑，本次手势交还给子控件
+         */
+        boolean onItemSwipeStart(View item);
+
+        /**
+         * @param dx 相对按下位置的横向位移
+         */
+        void onItemSwipe(View item, float dx);
+
+        /**
+         * @param velocityX 抬起时的横向速度，单位像素/秒；手势被取消时为 0
+         */
+        void onItemSwipeEnd(View item, float dx, float velocityX);
+    }
+
+    /**
+     * scrollToTopAndRefresh 用来把内容滚回顶部，RecyclerView 等默认不支持的控件需要自行实现
+     */
+    public interface ScrollToTopHandler {
+        /**
+         * 直接跳到距顶部约一屏的位置，不经过也不绑定中间的条目
+         */
+        void jumpNearTop(View target);
+
+        /**
+         * 从当前位置平滑滚动到顶部
+         */
+        void smoothScrollToTop(View target);
+
+        /**
+         * 停止正在进行的滚动并直接跳到顶部，平滑滚动超时后调用
+         */
+        void jumpToTop(View target);
+    }
+
+    /**
+     * 重建后恢复到刷新状态时回调，此时应接回 requestId 对应的请求而不是重新发起刷新。
+     * 进程被杀后请求已不存在，可根据 requestId 自行决定是否重新请求
+     */
+    public interface OnRefreshRestoredListener {
+        void onRefreshRestored(String requestId);
+    }
+
+    public interface OnQualityChangeListener {
+        void onQualityChanged(int oldLevel, int newLevel);
+    }
+}
@@ -0,0 +1,74 @@
+package rubo.pullswipelayout.pullswipe;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class DragProgressBindingTest {
+
+    @Test
+    public void bind_redrawsOnlyWhenPixelChanges() throws Exception {
+        RecordingProgress progress = new RecordingProgress();
+        DragProgressBinding binding = new DragProgressBinding(progress);
+
+        // 100 个输入采样只覆盖 10 像素的移动
+        for (int i = 0; i <= 100; i++) {
+            binding.bind(i / 1000f, 100);
+        }
+
+        assertEquals(11, progress.mCalls);
+        assertEquals(.1f, progress.mProgress, 1e-6f);
+    }
+
+    @Test
+    public void bind_usesConfiguredSteps() throws Exception {
+        RecordingProgress progress = new RecordingProgress();
+        DragProgressBinding binding = new DragProgressBinding(progress);
+        binding.setSteps(4);
+
+        for (int i = 0; i <= 100; i++) {
+            binding.bind(i / 100f, 100);
+        }
+
+        assertEquals(5, progress.mCalls);
+        assertEquals(1f, progress.mProgress, 1e-6f);
+    }
+
+    @Test
+    public void bind_clampsAndRebindsAfterReset() throws Exception {
+        RecordingProgress progress = new RecordingProgress();
+        DragProgressBinding binding = new DragProgressBinding(progress);
+
+        assertTrue(binding.bind(3f, 100));
+        assertFalse(binding.bind(2f, 100));
+        assertEquals(1f, progress.mProgress, 1e-6f);
+
+        binding.reset();
+        assertTrue(binding.bind(1f, 100));
+        assertEquals(2, progress.mCalls);
+    }
+
+    private static class RecordingProgress implements LoadingProgress {
+        int mCalls;
+        float mProgress;
+
+        @Override
+        public float getProgress() {
+            return mProgress;
+        }
+
+        @Override
+        public void setProgress(float progress) {
+            mCalls++;
+            mProgress = progress;
+        }
+
+        @Override
+        public void startProgress() {
+        }
+
+        @Override
+        public void resetProgress() {
+        }
+    }
+}
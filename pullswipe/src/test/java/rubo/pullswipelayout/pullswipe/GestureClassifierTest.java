@@ -0,0 +1,48 @@
+package rubo.pullswipelayout.pullswipe;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class GestureClassifierTest {
+
+    private static final int SLOP = 10;
+
+    @Test
+    public void classify_waitsForSlopThenPulls() throws Exception {
+        GestureClassifier classifier = new GestureClassifier(SLOP);
+        classifier.onDown(100, 100);
+
+        assertEquals(GestureClassifier.GESTURE_NONE, classifier.classify(102, 108, true, true));
+        assertEquals(GestureClassifier.GESTURE_PULL, classifier.classify(104, 115, true, true));
+        assertEquals(110f, classifier.getPullStartY(), 0f);
+
+        // 判定后不再变化
+        assertEquals(GestureClassifier.GESTURE_PULL, classifier.classify(200, 115, true, true));
+    }
+
+    @Test
+    public void classify_horizontalMoveSwipes() throws Exception {
+        GestureClassifier classifier = new GestureClassifier(SLOP);
+        classifier.onDown(100, 100);
+
+        assertEquals(GestureClassifier.GESTURE_ITEM_SWIPE, classifier.classify(120, 105, true, true));
+
+        // 不允许横滑时同样的移动不做判定
+        classifier.onDown(100, 100);
+        assertEquals(GestureClassifier.GESTURE_NONE, classifier.classify(120, 105, true, false));
+    }
+
+    @Test
+    public void classify_verticalScrollBlocksSwipe() throws Exception {
+        GestureClassifier classifier = new GestureClassifier(SLOP);
+        classifier.onDown(100, 100);
+
+        // 先向上滚过 slop，之后的横向移动也不再判定为横滑
+        assertEquals(GestureClassifier.GESTURE_NONE, classifier.classify(100, 80, false, true));
+        assertEquals(GestureClassifier.GESTURE_NONE, classifier.classify(150, 80, false, true));
+
+        classifier.onDown(100, 100);
+        assertEquals(GestureClassifier.GESTURE_ITEM_SWIPE, classifier.classify(150, 100, false, true));
+    }
+}
@@ -0,0 +1,66 @@
+package rubo.pullswipelayout.pullswipe;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketOf_isLog2OfMicros() throws Exception {
+        assertEquals(0, LatencyHistogram.bucketOf(0));
+        assertEquals(0, LatencyHistogram.bucketOf(1));
+        assertEquals(1, LatencyHistogram.bucketOf(2));
+        assertEquals(1, LatencyHistogram.bucketOf(3));
+        assertEquals(10, LatencyHistogram.bucketOf(1024));
+        assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.bucketOf(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void percentile_returnsBucketUpperBound() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 90; i++) {
+            histogram.record(5, TimeUnit.MILLISECONDS);
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(300, TimeUnit.MILLISECONDS);
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(100, snapshot.getTotalCount());
+        assertEquals(8192, snapshot.getPercentileMicros(50));
+        assertEquals(8192, snapshot.getPercentileMicros(90));
+        assertEquals(524288, snapshot.getPercentileMicros(99));
+    }
+
+    @Test
+    public void snapshotAndReset_neitherLosesNorRepeatsRecords() throws Exception {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final int threads = 4;
+        final int perThread = 100000;
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < perThread; i++) {
+                        histogram.record(i, TimeUnit.MICROSECONDS);
+                    }
+                    done.countDown();
+                }
+            }).start();
+        }
+
+        long total = 0;
+        while (done.getCount() > 0) {
+            total += histogram.snapshotAndReset().getTotalCount();
+        }
+        total += histogram.snapshotAndReset().getTotalCount();
+
+        assertEquals(threads * perThread, total);
+        assertEquals(0, histogram.snapshot().getTotalCount());
+    }
+}